@@ -0,0 +1,26 @@
+#!/bin/bash
+# Сравнение двух результатов JMH (target/jmh-result.json), например до и после коммита:
+#   git stash && mvn -Pbenchmarks -DskipTests verify && cp target/jmh-result.json /tmp/base.json
+#   git stash pop && mvn -Pbenchmarks -DskipTests verify
+#   scripts/jmh-compare.sh /tmp/base.json target/jmh-result.json
+# Требуется jq.
+
+set -euo pipefail
+
+if [ $# -ne 2 ]; then
+    echo "Использование: $0 <base.json> <current.json>"
+    exit 1
+fi
+
+# Ключ бенчмарка: имя метода и значения параметров
+KEY='.benchmark + (if .params then " " + ([.params | to_entries[] | "\(.key)=\(.value)"] | join(",")) else "" end)'
+
+jq -r --slurpfile current "$2" "
+    (\$current[0] | map({key: ($KEY), value: .primaryMetric}) | from_entries) as \$cur
+    | .[]
+    | ($KEY) as \$k
+    | select(\$cur[\$k] != null)
+    | [\$k, .primaryMetric.score, \$cur[\$k].score, .primaryMetric.scoreUnit,
+       ((\$cur[\$k].score - .primaryMetric.score) / .primaryMetric.score * 100)]
+    | \"\(.[0])\t\(.[1] * 1000 | round / 1000)\t\(.[2] * 1000 | round / 1000)\t\(.[3])\t\(.[4] * 10 | round / 10)%\"
+" "$1"
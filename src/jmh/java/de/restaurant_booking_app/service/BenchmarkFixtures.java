@@ -0,0 +1,69 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.Booking;
+import de.restaurant_booking_app.model.BookingStatus;
+import de.restaurant_booking_app.model.BookingTable;
+import de.restaurant_booking_app.model.MenuItem;
+import de.restaurant_booking_app.model.MenuItemCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Детерминированные наборы данных для бенчмарков (одинаковые при одинаковом seed)
+ */
+final class BenchmarkFixtures {
+
+    static final long SEED = 42L;
+
+    private static final String[] DISHES = {
+            "Борщ", "Солянка", "Цезарь", "Оливье", "Пельмени", "Блины", "Стейк", "Лосось",
+            "Ризотто", "Паста", "Тирамису", "Медовик", "Морс", "Лимонад", "Жаркое", "Сырники"
+    };
+    private static final String[] WORDS = {
+            "с курицей", "со сметаной", "с грибами", "домашний", "по-деревенски", "с ягодами",
+            "на гриле", "с овощами", "фирменный", "с сыром", "острый", "с зеленью"
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<MenuItem> menuItems(int count) {
+        Random random = new Random(SEED);
+        MenuItemCategory[] categories = MenuItemCategory.values();
+        List<MenuItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = DISHES[random.nextInt(DISHES.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            boolean vegan = random.nextInt(10) == 0;
+            items.add(MenuItem.builder()
+                    .id((long) i + 1)
+                    .name(name)
+                    .description(name + " " + WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)])
+                    .price(BigDecimal.valueOf(200 + random.nextInt(1800)))
+                    .category(categories[random.nextInt(categories.length)])
+                    .available(random.nextInt(8) != 0)
+                    .isVegetarian(vegan || random.nextInt(4) == 0)
+                    .isVegan(vegan)
+                    .isGlutenFree(random.nextInt(5) == 0)
+                    .build());
+        }
+        return items;
+    }
+
+    static Booking booking(long id) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(19).withMinute(0);
+        return Booking.builder()
+                .id(id)
+                .table(BookingTable.builder().id(1L).tableNumber(7).capacity(4).isVip(false).build())
+                .startTime(start)
+                .endTime(start.plusHours(2))
+                .customerName("Иван Петров")
+                .customerEmail("ivan@example.com")
+                .customerPhone("+79990000000")
+                .status(BookingStatus.CONFIRMED)
+                .build();
+    }
+}
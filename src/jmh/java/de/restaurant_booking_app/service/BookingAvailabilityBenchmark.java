@@ -0,0 +1,128 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.RestaurantBookingAppApplication;
+import de.restaurant_booking_app.model.BookingTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка конфликтов и поиск свободных столиков на H2 в памяти.
+ * <p>
+ * Поднимается контекст приложения с профилем test, в БД пакетно загружаются
+ * {@code tables} столиков и {@code bookings} бронирований на ближайшие {@code days} дней.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingAvailabilityBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"50"})
+    private int tables;
+
+    @Param({"10000", "100000"})
+    private int bookings;
+
+    @Param({"30"})
+    private int days;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private long[] tableIds;
+    private LocalDateTime[] probeStarts;
+    private int probe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RestaurantBookingAppApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.main.web-application-type=none",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.de.restaurant_booking_app=WARN")
+                .run();
+        bookingService = context.getBean(BookingService.class);
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(TableAvailabilityIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        List<Object[]> tableRows = new ArrayList<>(tables);
+        for (int i = 0; i < tables; i++) {
+            tableRows.add(new Object[]{1000 + i, 2 + random.nextInt(5) * 2, random.nextInt(10) == 0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO booking_tables (table_number, capacity, is_vip) VALUES (?, ?, ?)", tableRows);
+        tableIds = jdbcTemplate.queryForList("SELECT id FROM booking_tables WHERE table_number >= 1000", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+
+        // Бронирования по 110 минут в двухчасовых слотах с 12:00 до 24:00, каждое десятое отменено
+        int slotsPerDay = 6;
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        List<Object[]> bookingRows = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            int slot = random.nextInt(tableIds.length * days * slotsPerDay);
+            long tableId = tableIds[slot % tableIds.length];
+            int daySlot = slot / tableIds.length;
+            LocalDateTime start = firstDay.plusDays(daySlot / slotsPerDay).atTime(12 + (daySlot % slotsPerDay) * 2, 0);
+            bookingRows.add(new Object[]{tableId, Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(110)),
+                    "Гость " + i, "guest" + i + "@example.com", random.nextInt(10) == 0 ? "CANCELLED" : "CONFIRMED"});
+            if (bookingRows.size() == 1000 || i == bookings - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO booking (table_id, start_time, end_time, customer_name, " +
+                        "customer_email, status) VALUES (?, ?, ?, ?, ?, ?)", bookingRows);
+                bookingRows.clear();
+            }
+        }
+
+        probeStarts = new LocalDateTime[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probeStarts[i] = firstDay.plusDays(random.nextInt(days)).atTime(12 + random.nextInt(11), random.nextInt(4) * 15);
+        }
+    }
+
+    @Benchmark
+    public boolean hasConflict() {
+        int i = probe++ & (PROBES - 1);
+        LocalDateTime start = probeStarts[i];
+        return bookingService.hasConflict(tableIds[i % tableIds.length], start, start.plusHours(2), null);
+    }
+
+    @Benchmark
+    public List<BookingTable> findAvailableTables() {
+        LocalDateTime start = probeStarts[probe++ & (PROBES - 1)];
+        return bookingService.findAvailableTables(4, start, start.plusHours(2));
+    }
+}
@@ -0,0 +1,55 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.Booking;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.context.Context;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формирование письма о бронировании: подготовка контекста и рендеринг шаблона с фрагментом.
+ * Выделение памяти на письмо смотреть в выводе профилировщика gc (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailRenderingBenchmark {
+
+    private EmailRenderer emailRenderer;
+    private EmailService emailService;
+    private Booking booking;
+    private Context context;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        emailRenderer = new EmailRenderer();
+        emailRenderer.warmUp();
+        emailService = new EmailService(null, null, emailRenderer, meterRegistry);
+        booking = BenchmarkFixtures.booking(12345L);
+        context = emailService.bookingContext(booking, "Ваше бронирование успешно подтверждено.");
+    }
+
+    @Benchmark
+    public Context bookingContext() {
+        return emailService.bookingContext(booking, "Ваше бронирование успешно подтверждено.");
+    }
+
+    @Benchmark
+    public String render() {
+        return emailRenderer.render(EmailRenderer.EMAIL_TEMPLATE, context);
+    }
+}
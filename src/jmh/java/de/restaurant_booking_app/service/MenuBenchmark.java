@@ -0,0 +1,89 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.MenuFilter;
+import de.restaurant_booking_app.model.MenuItem;
+import de.restaurant_booking_app.model.MenuItemCategory;
+import de.restaurant_booking_app.repository.MenuItemRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Чтение меню: группировка по категориям, поиск и комбинированный фильтр на данных в памяти
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int items;
+
+    private List<MenuItem> menuItems;
+    private MenuService menuService;
+    private MenuFilter veganDesserts;
+
+    @Setup
+    public void setUp() {
+        menuItems = BenchmarkFixtures.menuItems(items);
+        MenuItemRepository repository = mock(MenuItemRepository.class);
+        when(repository.findAll()).thenReturn(menuItems);
+        menuService = new MenuService(repository, null);
+        menuService.getSnapshot();
+        veganDesserts = MenuFilter.builder()
+                .available(true)
+                .vegan(true)
+                .categories(EnumSet.of(MenuItemCategory.DESSERT))
+                .build();
+    }
+
+    @Benchmark
+    public Map<MenuItemCategory, List<MenuItem>> menuByCategories() {
+        return menuService.getMenuByCategories();
+    }
+
+    /**
+     * Прежняя реализация: группировка списка доступных блюд при каждом запросе
+     */
+    @Benchmark
+    public Map<MenuItemCategory, List<MenuItem>> menuByCategoriesGroupingBaseline() {
+        return menuItems.stream()
+                .filter(MenuItem::isAvailable)
+                .collect(Collectors.groupingBy(MenuItem::getCategory));
+    }
+
+    @Benchmark
+    public List<MenuItem> search() {
+        return menuService.searchMenuItems("салат с грибами");
+    }
+
+    @Benchmark
+    public List<MenuItem> searchWithTypo() {
+        return menuService.searchMenuItems("солянко");
+    }
+
+    @Benchmark
+    public List<MenuItem> filterAvailableVeganDesserts() {
+        return menuService.filterMenuItems(veganDesserts);
+    }
+}
@@ -0,0 +1,98 @@
+package de.restaurant_booking_app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность отправки писем на локальный SMTP-сервер:
+ * новое соединение на каждое письмо, соединение из пула и пакетная отправка
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmtpSendBenchmark {
+
+    private static final int WAVE = 50;
+
+    // Задержка открытия соединения, мс (0 — только TCP на localhost)
+    @Param({"0", "5"})
+    private long handshakeDelay;
+
+    private LocalSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool pool;
+    private List<MimeMessage> messages;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, MessagingException {
+        server = new LocalSmtpServer(handshakeDelay);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        pool = new SmtpTransportPool(mailSender, new SimpleMeterRegistry(), 1,
+                Duration.ofSeconds(10), Duration.ofMinutes(2), 30_000);
+        messages = new ArrayList<>(WAVE);
+        for (int i = 0; i < WAVE; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setTo("guest" + i + "@example.com");
+            helper.setSubject("Отмена бронирования столика");
+            helper.setText("<p>Ваше бронирование было отменено.</p>", true);
+            messages.add(message);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WAVE)
+    public void connectionPerMessage() {
+        for (MimeMessage message : messages) {
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WAVE)
+    public void pooledConnection() throws MessagingException {
+        for (MimeMessage message : messages) {
+            pool.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WAVE)
+    public List<SmtpTransportPool.Delivery> batch() {
+        return pool.sendAll(messages);
+    }
+}
@@ -2,8 +2,10 @@ package de.restaurant_booking_app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RestaurantBookingAppApplication {
 
     public static void main(String[] args) {
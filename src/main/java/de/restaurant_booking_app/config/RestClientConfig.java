@@ -1,44 +1,81 @@
 package de.restaurant_booking_app.config;
 
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.function.ToIntFunction;
 
 @Configuration
 public class RestClientConfig {
 
-    @Bean
-    public RestTemplate restTemplate() {
+    /**
+     * Асинхронный HTTP-клиент для SMS-шлюза и Push API.
+     * Запросы обслуживают несколько потоков ввода-вывода, вызывающий поток не блокируется;
+     * по TLS версия протокола согласуется через ALPN, и при поддержке сервером используется HTTP/2.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient notificationHttpClient(
+            MeterRegistry meterRegistry,
+            @Value("${notification.http.max-total:100}") int maxTotal,
+            @Value("${notification.http.max-per-route:20}") int maxPerRoute,
+            @Value("${notification.http.io-threads:2}") int ioThreads,
+            @Value("${notification.http.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${notification.http.response-timeout:PT15S}") Duration responseTimeout) {
+        // Пул соединений
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                        .build())
+                .build();
+        poolGauge(meterRegistry, connectionManager, "leased", PoolStats::getLeased);
+        poolGauge(meterRegistry, connectionManager, "available", PoolStats::getAvailable);
+        poolGauge(meterRegistry, connectionManager, "pending", PoolStats::getPending);
+        poolGauge(meterRegistry, connectionManager, "max", PoolStats::getMax);
+
         // Настройка таймаутов
         RequestConfig requestConfig = RequestConfig.custom()
-                .setConnectionRequestTimeout(5000, TimeUnit.MILLISECONDS)
-                .setResponseTimeout(15000, TimeUnit.MILLISECONDS)
+                .setConnectionRequestTimeout(Timeout.of(connectTimeout))
+                .setResponseTimeout(Timeout.of(responseTimeout))
                 .build();
 
-        // Создаем пул соединений
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
-        connectionManager.setMaxTotal(100);
-        connectionManager.setDefaultMaxPerRoute(20);
-
-        // Создаем HTTP клиент
-        CloseableHttpClient httpClient = HttpClients.custom()
+        CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
                 .setConnectionManager(connectionManager)
                 .setDefaultRequestConfig(requestConfig)
+                .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(ioThreads).build())
                 .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMinutes(1))
                 .build();
+        httpClient.start();
+        return httpClient;
+    }
 
-        // Создаем фабрику запросов
-        HttpComponentsClientHttpRequestFactory requestFactory =
-                new HttpComponentsClientHttpRequestFactory(httpClient);
-
-        // Возвращаем настроенный RestTemplate
-        return new RestTemplate(requestFactory);
+    private static void poolGauge(MeterRegistry meterRegistry, PoolingAsyncClientConnectionManager connectionManager,
+                                  String state, ToIntFunction<PoolStats> value) {
+        Gauge.builder("notification.http.pool", connectionManager, manager -> value.applyAsInt(manager.getTotalStats()))
+                .description("Соединения пула HTTP-клиента уведомлений")
+                .tag("state", state)
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package de.restaurant_booking_app.console;
 
 import de.restaurant_booking_app.dto.BookingDto;
+import de.restaurant_booking_app.dto.BookingPage;
 import de.restaurant_booking_app.exception.BookingConflictException;
 import de.restaurant_booking_app.exception.InvalidBookingException;
 import de.restaurant_booking_app.exception.ResourceNotFoundException;
@@ -27,9 +28,11 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Component
-@Profile("!test")
+@Profile("!test & !datagen")
 public class ConsoleUI implements CommandLineRunner {
 
+    private static final int CONSOLE_PAGE_SIZE = 20;
+
     private final BookingService bookingService;
     private final TableService tableService;
     private final Scanner scanner;
@@ -185,21 +188,33 @@ public class ConsoleUI implements CommandLineRunner {
         System.out.println("\n=== Все бронирования ===");
 
         try {
-            List<Booking> bookings = bookingService.getAllBookings();
+            BookingPage page = bookingService.getBookingsPage(null, null, null, CONSOLE_PAGE_SIZE);
 
-            if (bookings.isEmpty()) {
+            if (page.getItems().isEmpty()) {
                 System.out.println("Бронирований нет.");
                 return;
             }
 
-            for (Booking booking : bookings) {
-                System.out.printf("ID: %d, Столик: %d, Клиент: %s, Статус: %s%n" +
-                                "Время: с %s по %s%n",
-                        booking.getId(), booking.getTable().getTableNumber(),
-                        booking.getCustomerName(), getStatusText(booking.getStatus()),
-                        booking.getStartTime().format(formatter),
-                        booking.getEndTime().format(formatter));
-                System.out.println("-------------------------");
+            while (true) {
+                for (Booking booking : page.getItems()) {
+                    System.out.printf("ID: %d, Столик: %d, Клиент: %s, Статус: %s%n" +
+                                    "Время: с %s по %s%n",
+                            booking.getId(), booking.getTable().getTableNumber(),
+                            booking.getCustomerName(), getStatusText(booking.getStatus()),
+                            booking.getStartTime().format(formatter),
+                            booking.getEndTime().format(formatter));
+                    System.out.println("-------------------------");
+                }
+
+                if (!page.hasNext()) {
+                    break;
+                }
+                System.out.print("Показать следующие " + CONSOLE_PAGE_SIZE + " бронирований? (да/нет): ");
+                String answer = scanner.nextLine().trim().toLowerCase();
+                if (!"да".equals(answer) && !"yes".equals(answer)) {
+                    break;
+                }
+                page = bookingService.getBookingsPage(null, null, page.getNextCursor(), CONSOLE_PAGE_SIZE);
             }
         } catch (Exception e) {
             System.out.println("Ошибка при получении списка бронирований: " + e.getMessage());
@@ -279,21 +294,21 @@ public class ConsoleUI implements CommandLineRunner {
         System.out.println("\n=== Проверка непрочитанных писем ===");
 
         try {
-            List<String> unreadEmails = emailReceiverService.readUnreadEmails();
+            // Письма выводятся по мере чтения, без накопления в памяти
+            int[] number = {0};
+            int count = emailReceiverService.readUnreadEmails(mail -> {
+                System.out.println("\nПисьмо #" + (++number[0]) + ":");
+                System.out.println("----------------------------");
+                System.out.println("От: " + mail.getFrom() + "\nТема: " + mail.getSubject() + "\n\n" + mail.readText());
+                System.out.println("----------------------------");
+            });
 
-            if (unreadEmails.isEmpty()) {
+            if (count == 0) {
                 System.out.println("Непрочитанных писем нет.");
                 return;
             }
 
-            System.out.println("Найдено " + unreadEmails.size() + " непрочитанных писем:");
-
-            for (int i = 0; i < unreadEmails.size(); i++) {
-                System.out.println("\nПисьмо #" + (i + 1) + ":");
-                System.out.println("----------------------------");
-                System.out.println(unreadEmails.get(i));
-                System.out.println("----------------------------");
-            }
+            System.out.println("\nОбработано непрочитанных писем: " + count);
         } catch (Exception e) {
             System.out.println("Ошибка при проверке почты: " + e.getMessage());
             System.out.println("Проверьте настройки IMAP в файле конфигурации.");
@@ -1,7 +1,9 @@
 package de.restaurant_booking_app.controller;
 
 import de.restaurant_booking_app.dto.BookingDto;
+import de.restaurant_booking_app.dto.BookingPage;
 import de.restaurant_booking_app.model.Booking;
+import de.restaurant_booking_app.model.BookingStatus;
 import de.restaurant_booking_app.model.BookingTable;
 import de.restaurant_booking_app.service.BookingService;
 import de.restaurant_booking_app.service.TableService;
@@ -16,8 +18,6 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import jakarta.validation.Valid;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
 
 @Controller
@@ -46,20 +46,18 @@ public class AdminController {
     @GetMapping("/bookings")
     public String bookings(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) BookingStatus status,
+            @RequestParam(required = false) Long tableId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + BookingService.DEFAULT_PAGE_SIZE) int size,
             Model model) {
-        List<Booking> bookings;
-
-        if (date != null) {
-            LocalDateTime start = date.atStartOfDay();
-            LocalDateTime end = date.atTime(LocalTime.MAX);
-            // Предполагаем, что у BookingService есть метод getBookingsBetween
-            bookings = bookingService.getBookingsByDateRange(start, end);
-            model.addAttribute("selectedDate", date);
-        } else {
-            bookings = bookingService.getAllBookings();
-        }
+        BookingPage page = bookingService.getBookingsPage(status, tableId, date, cursor, size);
 
-        model.addAttribute("bookings", bookings);
+        model.addAttribute("bookings", page.getItems());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("selectedDate", date);
+        model.addAttribute("selectedStatus", status);
+        model.addAttribute("selectedTableId", tableId);
         return "admin/bookings";
     }
 
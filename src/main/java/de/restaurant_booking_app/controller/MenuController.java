@@ -1,8 +1,12 @@
 package de.restaurant_booking_app.controller;
 
+import de.restaurant_booking_app.dto.MenuFilter;
 import de.restaurant_booking_app.model.MenuItem;
 import de.restaurant_booking_app.model.MenuItemCategory;
+import de.restaurant_booking_app.model.PopularityWindow;
 import de.restaurant_booking_app.service.MenuService;
+import de.restaurant_booking_app.service.MenuSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -10,7 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/menu")
@@ -18,37 +22,38 @@ import java.util.Map;
 public class MenuController {
 
     private final MenuService menuService;
+    private final SnapshotResponseCache responseCache;
 
     @Autowired
-    public MenuController(MenuService menuService) {
+    public MenuController(MenuService menuService, SnapshotResponseCache responseCache) {
         this.menuService = menuService;
+        this.responseCache = responseCache;
     }
 
     /**
-     * Получение всего меню
+     * Получение всего меню (с поддержкой If-None-Match)
      */
     @GetMapping
-    public ResponseEntity<List<MenuItem>> getAllMenuItems(
-            @RequestParam(required = false) Boolean available) {
+    public ResponseEntity<byte[]> getAllMenuItems(
+            @RequestParam(required = false) Boolean available,
+            HttpServletRequest request) {
         log.info("Запрос на получение всех пунктов меню, available={}", available);
 
-        List<MenuItem> menuItems;
+        MenuSnapshot snapshot = menuService.getSnapshot();
         if (available != null && available) {
-            menuItems = menuService.getAvailableMenuItems();
-        } else {
-            menuItems = menuService.getAllMenuItems();
+            return responseCache.respond("menu:available", snapshot.getVersion(), snapshot::available, request);
         }
-
-        return ResponseEntity.ok(menuItems);
+        return responseCache.respond("menu", snapshot.getVersion(), snapshot::all, request);
     }
 
     /**
      * Получение меню по категориям
      */
     @GetMapping("/by-category")
-    public ResponseEntity<Map<MenuItemCategory, List<MenuItem>>> getMenuByCategories() {
+    public ResponseEntity<byte[]> getMenuByCategories(HttpServletRequest request) {
         log.info("Запрос на получение меню по категориям");
-        return ResponseEntity.ok(menuService.getMenuByCategories());
+        MenuSnapshot snapshot = menuService.getSnapshot();
+        return responseCache.respond("menu:by-category", snapshot.getVersion(), snapshot::availableByCategory, request);
     }
 
     /**
@@ -64,19 +69,38 @@ public class MenuController {
      * Получение пунктов меню по категории
      */
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<MenuItem>> getMenuItemsByCategory(
+    public ResponseEntity<byte[]> getMenuItemsByCategory(
             @PathVariable MenuItemCategory category,
-            @RequestParam(required = false) Boolean available) {
+            @RequestParam(required = false) Boolean available,
+            HttpServletRequest request) {
         log.info("Запрос на получение пунктов меню категории {}, available={}", category, available);
 
-        List<MenuItem> menuItems;
-        if (available != null && available) {
-            menuItems = menuService.getAvailableMenuItemsByCategory(category);
-        } else {
-            menuItems = menuService.getMenuItemsByCategory(category);
-        }
+        boolean availableOnly = available != null && available;
+        MenuSnapshot snapshot = menuService.getSnapshot();
+        return responseCache.respond("menu:category:" + category + ":" + availableOnly, snapshot.getVersion(),
+                () -> snapshot.byCategory(category, availableOnly), request);
+    }
 
-        return ResponseEntity.ok(menuItems);
+    /**
+     * Комбинированный фильтр меню, например доступные веганские десерты:
+     * /api/menu/filter?available=true&vegan=true&category=DESSERT
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<List<MenuItem>> filterMenuItems(
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) Boolean vegetarian,
+            @RequestParam(required = false) Boolean vegan,
+            @RequestParam(required = false) Boolean glutenFree,
+            @RequestParam(name = "category", required = false) Set<MenuItemCategory> categories) {
+        MenuFilter filter = MenuFilter.builder()
+                .available(available)
+                .vegetarian(vegetarian)
+                .vegan(vegan)
+                .glutenFree(glutenFree)
+                .categories(categories)
+                .build();
+        log.info("Фильтрация меню: {}", filter);
+        return ResponseEntity.ok(menuService.filterMenuItems(filter));
     }
 
     /**
@@ -92,27 +116,30 @@ public class MenuController {
      * Получение вегетарианских блюд
      */
     @GetMapping("/vegetarian")
-    public ResponseEntity<List<MenuItem>> getVegetarianItems() {
+    public ResponseEntity<byte[]> getVegetarianItems(HttpServletRequest request) {
         log.info("Запрос на получение вегетарианских блюд");
-        return ResponseEntity.ok(menuService.getVegetarianItems());
+        MenuSnapshot snapshot = menuService.getSnapshot();
+        return responseCache.respond("menu:vegetarian", snapshot.getVersion(), snapshot::vegetarian, request);
     }
 
     /**
      * Получение веганских блюд
      */
     @GetMapping("/vegan")
-    public ResponseEntity<List<MenuItem>> getVeganItems() {
+    public ResponseEntity<byte[]> getVeganItems(HttpServletRequest request) {
         log.info("Запрос на получение веганских блюд");
-        return ResponseEntity.ok(menuService.getVeganItems());
+        MenuSnapshot snapshot = menuService.getSnapshot();
+        return responseCache.respond("menu:vegan", snapshot.getVersion(), snapshot::vegan, request);
     }
 
     /**
      * Получение безглютеновых блюд
      */
     @GetMapping("/gluten-free")
-    public ResponseEntity<List<MenuItem>> getGlutenFreeItems() {
+    public ResponseEntity<byte[]> getGlutenFreeItems(HttpServletRequest request) {
         log.info("Запрос на получение безглютеновых блюд");
-        return ResponseEntity.ok(menuService.getGlutenFreeItems());
+        MenuSnapshot snapshot = menuService.getSnapshot();
+        return responseCache.respond("menu:gluten-free", snapshot.getVersion(), snapshot::glutenFree, request);
     }
 
     /**
@@ -120,9 +147,10 @@ public class MenuController {
      */
     @GetMapping("/popular")
     public ResponseEntity<List<MenuItem>> getPopularItems(
-            @RequestParam(defaultValue = "5") int limit) {
-        log.info("Запрос на получение топ-{} популярных блюд", limit);
-        return ResponseEntity.ok(menuService.getPopularItems(limit));
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(defaultValue = "ALL_TIME") PopularityWindow window) {
+        log.info("Запрос на получение топ-{} популярных блюд за период {}", limit, window);
+        return ResponseEntity.ok(menuService.getPopularItems(window, limit));
     }
 
     /**
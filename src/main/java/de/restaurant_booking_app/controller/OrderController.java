@@ -0,0 +1,43 @@
+package de.restaurant_booking_app.controller;
+
+import de.restaurant_booking_app.model.RestaurantOrder;
+import de.restaurant_booking_app.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/orders")
+@Slf4j
+public class OrderController {
+
+    private final OrderService orderService;
+
+    public OrderController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    /**
+     * Оформление заказа
+     */
+    @PostMapping
+    public ResponseEntity<RestaurantOrder> placeOrder(@RequestBody RestaurantOrder order) {
+        log.info("Оформление заказа на {} позиций", order.getDetails() != null ? order.getDetails().size() : 0);
+        return new ResponseEntity<>(orderService.placeOrder(order), HttpStatus.CREATED);
+    }
+
+    /**
+     * Пакетная загрузка заказов (например, выгрузка из кассовой системы)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<RestaurantOrder>> placeOrders(@RequestBody List<RestaurantOrder> orders) {
+        log.info("Пакетное оформление {} заказов", orders.size());
+        return new ResponseEntity<>(orderService.placeOrders(orders), HttpStatus.CREATED);
+    }
+}
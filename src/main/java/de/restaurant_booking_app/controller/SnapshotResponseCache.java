@@ -0,0 +1,164 @@
+package de.restaurant_booking_app.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кеш готовых JSON-ответов для данных, которые отдаются из снимков (меню, столики).
+ * <p>
+ * Для каждой версии снимка тело ответа сериализуется один раз, к нему вычисляются
+ * сильный ETag и (для крупных ответов) заранее сжатая gzip-копия. Запрос с совпадающим
+ * {@code If-None-Match} получает 304 без сериализации, остальные — готовые байты.
+ */
+@Component
+@Slf4j
+public class SnapshotResponseCache {
+
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, CachedBody> bodies = new ConcurrentHashMap<>();
+
+    public SnapshotResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Ответ для представления {@code key} версии {@code version}; {@code body} вызывается
+     * только если эта версия еще не сериализована
+     */
+    public ResponseEntity<byte[]> respond(String key, long version, Supplier<?> body, HttpServletRequest request) {
+        CachedBody cached = bodies.get(key);
+        if (cached == null || cached.version() < version) {
+            cached = bodies.compute(key, (k, current) ->
+                    current != null && current.version() >= version ? current : serialize(k, version, body.get()));
+        }
+
+        boolean gzip = cached.gzipped() != null && acceptsGzip(request);
+        String etag = gzip ? cached.gzipEtag() : cached.etag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(CacheControl.noCache());
+        if (cached.gzipped() != null) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            return new ResponseEntity<>(cached.gzipped(), headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(cached.json(), headers, HttpStatus.OK);
+    }
+
+    private CachedBody serialize(String key, long version, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            String hash = DigestUtils.md5DigestAsHex(json);
+            byte[] gzipped = json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+            log.debug("Ответ {} версии {} сериализован: {} байт, gzip {} байт",
+                    key, version, json.length, gzipped != null ? gzipped.length : 0);
+            return new CachedBody(version, json, gzipped, "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать ответ " + key, e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        return acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * Разбор Accept-Encoding по кодировкам: gzip (или x-gzip) с q больше нуля, либо «*» с q больше нуля,
+     * если gzip не указан явно. {@code q=0} означает запрет кодировки.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (coding.equals(GZIP) || coding.equals("x-" + GZIP)) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record CachedBody(long version, byte[] json, byte[] gzipped, String etag, String gzipEtag) {
+    }
+}
@@ -3,6 +3,8 @@ package de.restaurant_booking_app.controller;
 
 import de.restaurant_booking_app.model.BookingTable;
 import de.restaurant_booking_app.service.TableService;
+import de.restaurant_booking_app.service.TableSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -24,19 +26,22 @@ import java.util.List;
 public class TableController {
 
     private final TableService tableService;
+    private final SnapshotResponseCache responseCache;
 
     @Autowired
-    public TableController(TableService tableService) {
+    public TableController(TableService tableService, SnapshotResponseCache responseCache) {
         this.tableService = tableService;
+        this.responseCache = responseCache;
     }
 
     /**
-     * Получение всех столиков
+     * Получение всех столиков (с поддержкой If-None-Match)
      */
     @GetMapping
-    public ResponseEntity<List<BookingTable>> getAllTables() {
+    public ResponseEntity<byte[]> getAllTables(HttpServletRequest request) {
         log.info("Запрос на получение всех столиков");
-        return ResponseEntity.ok(tableService.getAllTables());
+        TableSnapshot snapshot = tableService.getSnapshot();
+        return responseCache.respond("tables", snapshot.getVersion(), snapshot::all, request);
     }
 
     /**
@@ -52,9 +57,10 @@ public class TableController {
      * Получение VIP столиков
      */
     @GetMapping("/vip")
-    public ResponseEntity<List<BookingTable>> getVipTables() {
+    public ResponseEntity<byte[]> getVipTables(HttpServletRequest request) {
         log.info("Запрос на получение VIP столиков");
-        return ResponseEntity.ok(tableService.getVipTables());
+        TableSnapshot snapshot = tableService.getSnapshot();
+        return responseCache.respond("tables:vip", snapshot.getVersion(), snapshot::vip, request);
     }
 
     /**
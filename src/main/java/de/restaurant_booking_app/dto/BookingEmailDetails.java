@@ -0,0 +1,27 @@
+package de.restaurant_booking_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Данные бронирования для фрагмента письма, подготовленные заранее:
+ * шаблон получает готовые строки и не обращается к сущностям
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEmailDetails {
+
+    private Long id;
+
+    private Integer tableNumber;
+
+    private String startTime;
+
+    private String endTime;
+
+    private String status;
+}
@@ -0,0 +1,24 @@
+package de.restaurant_booking_app.dto;
+
+import de.restaurant_booking_app.model.Booking;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Страница бронирований с непрозрачным курсором продолжения
+ */
+@Data
+@AllArgsConstructor
+public class BookingPage {
+
+    private List<Booking> items;
+
+    // null, если следующей страницы нет
+    private String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,23 @@
+package de.restaurant_booking_app.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемые данные бронирования для SMS-напоминания. Выбираются из БД проекцией,
+ * поэтому потоковая рассылка не накапливает сущности в контексте персистентности.
+ */
+@Value
+public class BookingReminder {
+
+    Long id;
+
+    String customerName;
+
+    String customerPhone;
+
+    LocalDateTime startTime;
+
+    Integer tableNumber;
+}
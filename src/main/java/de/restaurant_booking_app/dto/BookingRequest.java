@@ -0,0 +1,39 @@
+package de.restaurant_booking_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Заявка на бронирование, извлеченная из входящего письма.
+ * Поля, которые не удалось распознать, остаются пустыми.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingRequest {
+
+    private long mailUid;
+
+    private LocalDateTime receivedAt;
+
+    private LocalDate date;
+
+    private LocalTime time;
+
+    private Integer partySize;
+
+    private String customerName;
+
+    private String customerEmail;
+
+    private String customerPhone;
+
+    private String excerpt;
+}
@@ -0,0 +1,72 @@
+package de.restaurant_booking_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Входящее письмо, переданное обработчику.
+ * <p>
+ * Текст приводится к UTF-8. Небольшой текст хранится в памяти, крупный текст и все вложения
+ * записаны во временные файлы, которые удаляются сразу после обработки письма.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboundMail {
+
+    private long uid;
+
+    // Папка и ее UIDVALIDITY: UID уникален только в их пределах
+    private String folder;
+
+    private long uidValidity;
+
+    private String from;
+
+    private String subject;
+
+    private LocalDateTime sentAt;
+
+    private String text;
+
+    private Path textFile;
+
+    @Builder.Default
+    private List<Attachment> attachments = new ArrayList<>();
+
+    /**
+     * Текст письма из памяти или из временного файла
+     */
+    public String readText() throws IOException {
+        if (textFile != null) {
+            return Files.readString(textFile, StandardCharsets.UTF_8);
+        }
+        return text != null ? text : "";
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Attachment {
+
+        private String fileName;
+
+        private String contentType;
+
+        private long size;
+
+        private Path file;
+    }
+}
@@ -0,0 +1,30 @@
+package de.restaurant_booking_app.dto;
+
+import de.restaurant_booking_app.model.MenuItemCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Критерии комбинированного фильтра меню.
+ * null в признаке означает «не важно», пустой набор категорий — «любая категория».
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuFilter {
+
+    private Boolean available;
+
+    private Boolean vegetarian;
+
+    private Boolean vegan;
+
+    private Boolean glutenFree;
+
+    private Set<MenuItemCategory> categories;
+}
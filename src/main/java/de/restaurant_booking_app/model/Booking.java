@@ -54,6 +54,10 @@ public class Booking {
     @Column(nullable = false)
     private BookingStatus status = BookingStatus.CONFIRMED;
 
+    @Builder.Default
+    @Column(name = "reminder_sent", nullable = false)
+    private Boolean reminderSent = false;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
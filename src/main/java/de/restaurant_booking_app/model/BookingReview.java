@@ -0,0 +1,63 @@
+package de.restaurant_booking_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Заявка из входящего письма, которую не удалось забронировать автоматически
+ */
+@Entity
+@Table(name = "booking_review_queue")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingReview {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "mail_uid", nullable = false)
+    private Long mailUid;
+
+    @Column(name = "customer_name", length = 100)
+    private String customerName;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Column(name = "customer_phone", length = 40)
+    private String customerPhone;
+
+    @Column(name = "requested_start")
+    private LocalDateTime requestedStart;
+
+    @Column(name = "party_size")
+    private Integer partySize;
+
+    @Column(nullable = false, length = 500)
+    private String reason;
+
+    @Column(length = 1000)
+    private String excerpt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
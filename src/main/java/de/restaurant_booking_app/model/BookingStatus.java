@@ -1,7 +1,17 @@
 package de.restaurant_booking_app.model;
 
 public enum BookingStatus {
-    CONFIRMED,
-    PENDING,
-    CANCELLED,
+    CONFIRMED("Подтверждено"),
+    PENDING("Ожидает подтверждения"),
+    CANCELLED("Отменено");
+
+    private final String displayName;
+
+    BookingStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
 }
@@ -0,0 +1,78 @@
+package de.restaurant_booking_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Принятое письмо с заявкой на бронирование. Сохраняется до продвижения курсора почтового ящика
+ * и остается в статусе PENDING, пока по заявке не создано бронирование или запись на проверку.
+ * Письмо однозначно определяется папкой, UIDVALIDITY папки и UID
+ */
+@Entity
+@Table(name = "inbound_booking_requests",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inbound_booking_requests_mail",
+                columnNames = {"folder", "uid_validity", "mail_uid"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InboundBookingRequest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String folder;
+
+    @Column(name = "uid_validity", nullable = false)
+    private Long uidValidity;
+
+    @Column(name = "mail_uid", nullable = false)
+    private Long mailUid;
+
+    @Column(length = 320)
+    private String sender;
+
+    @Column(length = 1000)
+    private String subject;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(length = 16384)
+    private String body;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private InboundRequestStatus status = InboundRequestStatus.PENDING;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
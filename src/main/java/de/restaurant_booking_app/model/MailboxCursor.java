@@ -0,0 +1,46 @@
+package de.restaurant_booking_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Позиция обработки почтовой папки: UID последнего обработанного письма
+ * действителен только при неизменном UIDVALIDITY папки
+ */
+@Entity
+@Table(name = "mailbox_cursors")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MailboxCursor {
+
+    @Id
+    @Column(length = 255)
+    private String folder;
+
+    @Column(name = "uid_validity", nullable = false)
+    private long uidValidity;
+
+    @Column(name = "last_uid", nullable = false)
+    private long lastUid;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
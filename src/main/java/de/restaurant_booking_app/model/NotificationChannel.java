@@ -0,0 +1,7 @@
+package de.restaurant_booking_app.model;
+
+public enum NotificationChannel {
+    EMAIL,
+    SMS,
+    ADMIN_SMS,
+}
@@ -0,0 +1,26 @@
+package de.restaurant_booking_app.model;
+
+import java.util.List;
+
+import static de.restaurant_booking_app.model.NotificationChannel.ADMIN_SMS;
+import static de.restaurant_booking_app.model.NotificationChannel.EMAIL;
+import static de.restaurant_booking_app.model.NotificationChannel.SMS;
+
+public enum NotificationType {
+    BOOKING_CONFIRMATION(EMAIL, SMS, ADMIN_SMS),
+    BOOKING_CANCELLATION(EMAIL, SMS),
+    BOOKING_UPDATE(EMAIL);
+
+    private final List<NotificationChannel> channels;
+
+    NotificationType(NotificationChannel... channels) {
+        this.channels = List.of(channels);
+    }
+
+    /**
+     * Каналы, по которым отправляется уведомление; каждый канал — отдельная запись outbox
+     */
+    public List<NotificationChannel> getChannels() {
+        return channels;
+    }
+}
@@ -0,0 +1,10 @@
+package de.restaurant_booking_app.model;
+
+/**
+ * Период, за который считается популярность блюд
+ */
+public enum PopularityWindow {
+    DAY,
+    WEEK,
+    ALL_TIME
+}
@@ -1,13 +1,21 @@
 package de.restaurant_booking_app.repository;
 
+import de.restaurant_booking_app.dto.BookingReminder;
 import de.restaurant_booking_app.model.Booking;
 import de.restaurant_booking_app.model.BookingStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByStatus(BookingStatus status);
@@ -16,12 +24,21 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     List<Booking> findByCustomerEmail(String customerEmail);
 
-    @Query("SELECT b FROM Booking b WHERE " +
-            "FUNCTION('YEAR', b.startTime) = FUNCTION('YEAR', CURRENT_DATE) AND " +
-            "FUNCTION('MONTH', b.startTime) = FUNCTION('MONTH', CURRENT_DATE) AND " +
-            "FUNCTION('DAY', b.startTime) = FUNCTION('DAY', CURRENT_DATE) AND " +
-            "b.status = 'CONFIRMED'")
-    List<Booking> findTodayBookings();
+    // Диапазонный (sargable) запрос: использует индекс idx_booking_status_start_time
+    @Query("SELECT b FROM Booking b WHERE b.status = :status " +
+            "AND b.startTime >= :dayStart AND b.startTime < :nextDayStart " +
+            "ORDER BY b.startTime")
+    List<Booking> findByStatusStartingBetween(@Param("status") BookingStatus status,
+                                              @Param("dayStart") LocalDateTime dayStart,
+                                              @Param("nextDayStart") LocalDateTime nextDayStart);
+
+    default List<Booking> findDayBookings(LocalDate day) {
+        return findByStatusStartingBetween(BookingStatus.CONFIRMED, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    default List<Booking> findTodayBookings() {
+        return findDayBookings(LocalDate.now());
+    }
 
     @Query("SELECT b FROM Booking b WHERE b.table.id = :tableId AND b.status = 'CONFIRMED' " +
             "AND ((b.startTime <= :endTime AND b.endTime >= :startTime))")
@@ -29,9 +46,136 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                           @Param("startTime") LocalDateTime startTime,
                                           @Param("endTime") LocalDateTime endTime);
 
+    // Столики, занятые в интервале: одна проверка по БД для всего списка кандидатов
+    @Query("SELECT DISTINCT b.table.id FROM Booking b WHERE b.status = 'CONFIRMED' " +
+            "AND b.startTime <= :endTime AND b.endTime >= :startTime")
+    List<Long> findBookedTableIds(@Param("startTime") LocalDateTime startTime,
+                                  @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT b.startTime, b.endTime FROM Booking b WHERE b.table.id = :tableId AND b.status = 'CONFIRMED' " +
+            "AND b.startTime <= :endTime AND b.endTime >= :startTime")
+    List<Object[]> findConfirmedIntervals(@Param("tableId") Long tableId,
+                                          @Param("startTime") LocalDateTime startTime,
+                                          @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT b.table.id, b.startTime, b.endTime FROM Booking b " +
+            "WHERE b.status = 'CONFIRMED' AND b.endTime >= :from")
+    List<Object[]> findConfirmedIntervalsEndingAfter(@Param("from") LocalDateTime from);
+
+    // Keyset-пагинация по (start_time, id) в интервале начала [afterStartTime, before): отдельный запрос
+    // на каждое сочетание фильтров, чтобы план строился по индексу под фактические условия.
+    // Избыточное условие startTime >= afterStartTime задает начало диапазона индекса: по OR его не вывести
+    // и каждая страница читала бы индекс с начала интервала
+    default List<Booking> findKeysetPage(BookingStatus status, Long tableId,
+                                         LocalDateTime afterStartTime, Long afterId,
+                                         LocalDateTime before, Pageable pageable) {
+        if (status != null && tableId != null) {
+            return findPageByStatusAndTable(status, tableId, afterStartTime, afterId, before, pageable);
+        }
+        if (status != null) {
+            return findPageByStatus(status, afterStartTime, afterId, before, pageable);
+        }
+        if (tableId != null) {
+            return findPageByTable(tableId, afterStartTime, afterId, before, pageable);
+        }
+        return findPage(afterStartTime, afterId, before, pageable);
+    }
+
+    // Индекс idx_booking_start_time_id
+    @Query("SELECT b FROM Booking b WHERE " +
+            "b.startTime >= :afterStartTime AND (b.startTime > :afterStartTime " +
+            "OR (b.startTime = :afterStartTime AND b.id > :afterId)) " +
+            "AND b.startTime < :before ORDER BY b.startTime, b.id")
+    List<Booking> findPage(@Param("afterStartTime") LocalDateTime afterStartTime,
+                           @Param("afterId") Long afterId,
+                           @Param("before") LocalDateTime before,
+                           Pageable pageable);
+
+    // Индекс idx_booking_status_start_time
+    @Query("SELECT b FROM Booking b WHERE b.status = :status AND " +
+            "b.startTime >= :afterStartTime AND (b.startTime > :afterStartTime " +
+            "OR (b.startTime = :afterStartTime AND b.id > :afterId)) " +
+            "AND b.startTime < :before ORDER BY b.startTime, b.id")
+    List<Booking> findPageByStatus(@Param("status") BookingStatus status,
+                                   @Param("afterStartTime") LocalDateTime afterStartTime,
+                                   @Param("afterId") Long afterId,
+                                   @Param("before") LocalDateTime before,
+                                   Pageable pageable);
+
+    // Индекс idx_booking_table_start_time_id
+    @Query("SELECT b FROM Booking b WHERE b.table.id = :tableId AND " +
+            "b.startTime >= :afterStartTime AND (b.startTime > :afterStartTime " +
+            "OR (b.startTime = :afterStartTime AND b.id > :afterId)) " +
+            "AND b.startTime < :before ORDER BY b.startTime, b.id")
+    List<Booking> findPageByTable(@Param("tableId") Long tableId,
+                                  @Param("afterStartTime") LocalDateTime afterStartTime,
+                                  @Param("afterId") Long afterId,
+                                  @Param("before") LocalDateTime before,
+                                  Pageable pageable);
+
+    // Индекс idx_booking_table_start_time_id, статус проверяется по строкам одного столика
+    @Query("SELECT b FROM Booking b WHERE b.table.id = :tableId AND b.status = :status AND " +
+            "b.startTime >= :afterStartTime AND (b.startTime > :afterStartTime " +
+            "OR (b.startTime = :afterStartTime AND b.id > :afterId)) " +
+            "AND b.startTime < :before ORDER BY b.startTime, b.id")
+    List<Booking> findPageByStatusAndTable(@Param("status") BookingStatus status,
+                                           @Param("tableId") Long tableId,
+                                           @Param("afterStartTime") LocalDateTime afterStartTime,
+                                           @Param("afterId") Long afterId,
+                                           @Param("before") LocalDateTime before,
+                                           Pageable pageable);
+
     @Query("SELECT b FROM Booking b WHERE b.endTime < :date")
     List<Booking> findBookingsOlderThan(@Param("date") LocalDateTime date);
 
+    // Пакетная архивация: выборка идентификаторов очередной порции
+    @Query(value = "SELECT id FROM booking WHERE end_time < :date ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findIdsOlderThan(@Param("date") LocalDateTime date, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO booking_archive (id, table_id, start_time, end_time, customer_name, customer_email, " +
+            "customer_phone, status, created_at, updated_at, archived_at) " +
+            "SELECT id, table_id, start_time, end_time, customer_name, customer_email, " +
+            "customer_phone, status, created_at, updated_at, CURRENT_TIMESTAMP " +
+            "FROM booking WHERE id IN (:ids)", nativeQuery = true)
+    int copyToArchive(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM booking WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    // Окно сроков для планировщика напоминаний: только id и время начала
+    @Query("SELECT b.id, b.startTime FROM Booking b WHERE b.status = 'CONFIRMED' AND b.reminderSent = false " +
+            "AND b.startTime >= :from AND b.startTime < :to")
+    List<Object[]> findConfirmedStartTimes(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Потоковое чтение для рассылки напоминаний (требует открытой транзакции).
+    // Проекция вместо сущностей: строки не остаются в контексте персистентности до конца рассылки
+    @Query("SELECT new de.restaurant_booking_app.dto.BookingReminder(b.id, b.customerName, b.customerPhone, " +
+            "b.startTime, t.tableNumber) FROM Booking b JOIN b.table t WHERE b.status = :status " +
+            "AND b.startTime >= :from AND b.startTime < :to ORDER BY b.startTime")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "100"))
+    Stream<BookingReminder> streamRemindersStartingBetween(@Param("status") BookingStatus status,
+                                                           @Param("from") LocalDateTime from,
+                                                           @Param("to") LocalDateTime to);
+
+    @Query("SELECT new de.restaurant_booking_app.dto.BookingReminder(b.id, b.customerName, b.customerPhone, " +
+            "b.startTime, t.tableNumber) FROM Booking b JOIN b.table t WHERE b.id IN :ids AND b.status = :status")
+    List<BookingReminder> findRemindersByIds(@Param("ids") List<Long> ids, @Param("status") BookingStatus status);
+
+    // Захват напоминания: условное обновление проходит только у одного экземпляра
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.reminderSent = true " +
+            "WHERE b.id = :id AND b.status = 'CONFIRMED' AND b.reminderSent = false")
+    int markReminderSent(@Param("id") Long id);
+
+    // Возврат захвата, если напоминание не удалось отправить
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.reminderSent = false WHERE b.id = :id AND b.reminderSent = true")
+    int resetReminderSent(@Param("id") Long id);
+
     List<Booking> findByStatusAndStartTimeBetween(BookingStatus status, LocalDateTime startTime, LocalDateTime endTime);
 
 
@@ -1,7 +1,9 @@
 package de.restaurant_booking_app.repository;
 
 import de.restaurant_booking_app.model.BookingTable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -13,6 +15,11 @@ public interface BookingTableRepository extends JpaRepository<BookingTable, Long
 
     Optional<BookingTable> findByTableNumber(Integer tableNumber);
 
+    // SELECT ... FOR UPDATE: сериализует бронирования одного столика между узлами
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM BookingTable t WHERE t.id = :id")
+    Optional<BookingTable> findByIdForUpdate(@Param("id") Long id);
+
     List<BookingTable> findByCapacityGreaterThanEqualOrderByCapacityAsc(Integer capacity);
 
     List<BookingTable> findByIsVip(Boolean isVip);
@@ -0,0 +1,33 @@
+package de.restaurant_booking_app.repository;
+
+import de.restaurant_booking_app.model.InboundBookingRequest;
+import de.restaurant_booking_app.model.InboundRequestStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface InboundBookingRequestRepository extends JpaRepository<InboundBookingRequest, Long> {
+
+    List<InboundBookingRequest> findByStatusOrderByIdAsc(InboundRequestStatus status);
+
+    // Решение записывается только для необработанной заявки, поэтому повторная обработка
+    // того же письма не проходит и откатывает свою транзакцию
+    @Transactional
+    @Modifying
+    @Query("UPDATE InboundBookingRequest r SET r.status = :status, r.bookingId = :bookingId, r.processedAt = :now " +
+            "WHERE r.id = :id AND r.status = 'PENDING'")
+    int markDecided(@Param("id") Long id,
+                    @Param("status") InboundRequestStatus status,
+                    @Param("bookingId") Long bookingId,
+                    @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InboundBookingRequest r WHERE r.status <> 'PENDING' AND r.processedAt < :date")
+    int deleteDecidedBefore(@Param("date") LocalDateTime date);
+}
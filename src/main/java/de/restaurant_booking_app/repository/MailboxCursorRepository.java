@@ -0,0 +1,7 @@
+package de.restaurant_booking_app.repository;
+
+import de.restaurant_booking_app.model.MailboxCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MailboxCursorRepository extends JpaRepository<MailboxCursor, String> {
+}
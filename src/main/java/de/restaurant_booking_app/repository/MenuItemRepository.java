@@ -4,7 +4,6 @@ import de.restaurant_booking_app.model.MenuItem;
 import de.restaurant_booking_app.model.MenuItemCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -35,13 +34,4 @@ public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
     // Поиск специальных предложений (фирменных блюд)
     @Query("SELECT m FROM MenuItem m WHERE m.category = de.restaurant_booking_app.model.MenuItemCategory.SPECIAL")
     List<MenuItem> findSpecialOffers();
-
-    // Получение популярных блюд на основе заказов
-    @Query(value = "SELECT mi.* FROM menu_items mi " +
-            "JOIN order_details od ON mi.id = od.menu_item_id " +
-            "GROUP BY mi.id " +
-            "ORDER BY COUNT(od.id) DESC " +
-            "LIMIT :limit",
-            nativeQuery = true)
-    List<MenuItem> findPopularItems(@Param("limit") int limit);
 }
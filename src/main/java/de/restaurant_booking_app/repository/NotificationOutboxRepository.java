@@ -0,0 +1,37 @@
+package de.restaurant_booking_app.repository;
+
+import de.restaurant_booking_app.model.NotificationOutbox;
+import de.restaurant_booking_app.model.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    @Query("SELECT n.id FROM NotificationOutbox n WHERE n.status = :status AND n.nextAttemptAt <= :now ORDER BY n.id")
+    List<Long> findDueIds(@Param("status") OutboxStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Захват записей: условие на next_attempt_at перепроверяется под блокировкой строки,
+    // поэтому запись, уже захваченная другим экземпляром, не обновится повторно
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.claimToken = :token, n.nextAttemptAt = :leaseUntil " +
+            "WHERE n.id IN :ids AND n.status = :status AND n.nextAttemptAt <= :now")
+    int claim(@Param("ids") List<Long> ids,
+              @Param("status") OutboxStatus status,
+              @Param("now") LocalDateTime now,
+              @Param("token") String token,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<NotificationOutbox> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox n WHERE n.status = :status AND n.processedAt < :date")
+    int deleteProcessedBefore(@Param("status") OutboxStatus status, @Param("date") LocalDateTime date);
+}
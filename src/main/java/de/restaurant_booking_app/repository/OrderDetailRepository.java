@@ -0,0 +1,24 @@
+package de.restaurant_booking_app.repository;
+
+import de.restaurant_booking_app.model.OrderDetail;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
+
+    // Суммарное количество заказанных порций по каждому блюду: [menuItemId, quantity]
+    @Query("SELECT d.menuItemId, SUM(d.quantity) FROM OrderDetail d GROUP BY d.menuItemId")
+    List<Object[]> sumQuantityByMenuItem();
+
+    // Позиции заказов, начиная с указанного момента: [menuItemId, quantity, createdAt] (требует открытой транзакции)
+    @Query("SELECT d.menuItemId, d.quantity, o.createdAt FROM OrderDetail d JOIN d.order o WHERE o.createdAt >= :from")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    Stream<Object[]> streamDetailsCreatedAfter(@Param("from") LocalDateTime from);
+}
@@ -0,0 +1,105 @@
+package de.restaurant_booking_app.repository;
+
+import de.restaurant_booking_app.model.OrderDetail;
+import de.restaurant_booking_app.model.RestaurantOrder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запись заказов через JDBC.
+ * <p>
+ * У сущностей ключи IDENTITY, из-за чего Hibernate не группирует INSERT в пакеты;
+ * здесь заголовки заказов вставляются многострочным INSERT с получением ключей
+ * (в PostgreSQL драйвер добавляет {@code RETURNING id}), а все позиции — одним
+ * пакетным {@code batchUpdate}. Оба шага идут порциями по {@code order.jdbc.batch-size}.
+ */
+@Repository
+@Slf4j
+public class OrderJdbcRepository {
+
+    private static final String INSERT_ORDERS =
+            "INSERT INTO orders (booking_id, table_id, total_amount, created_at) VALUES ";
+    private static final String ORDER_VALUES = "(?, ?, ?, ?)";
+    // Ограничивает длину запроса и число параметров (в PostgreSQL не больше 32767)
+    private static final int MAX_ORDERS_PER_INSERT = 1000;
+    private static final String INSERT_DETAIL =
+            "INSERT INTO order_details (order_id, menu_item_id, quantity, price) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public OrderJdbcRepository(JdbcTemplate jdbcTemplate,
+                               @Value("${order.jdbc.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Вставка заказов вместе с позициями; заказам проставляются сгенерированные id
+     */
+    public void insertAll(List<RestaurantOrder> orders) {
+        int chunkSize = Math.min(batchSize, MAX_ORDERS_PER_INSERT);
+        for (int from = 0; from < orders.size(); from += chunkSize) {
+            insertOrders(orders.subList(from, Math.min(from + chunkSize, orders.size())));
+        }
+
+        List<OrderDetail> details = new ArrayList<>();
+        for (RestaurantOrder order : orders) {
+            for (OrderDetail detail : order.getDetails()) {
+                detail.setOrder(order);
+                details.add(detail);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_DETAIL, details, batchSize, (ps, detail) -> {
+            ps.setLong(1, detail.getOrder().getId());
+            ps.setLong(2, detail.getMenuItemId());
+            ps.setInt(3, detail.getQuantity());
+            ps.setBigDecimal(4, detail.getPrice());
+        });
+        log.debug("Сохранено {} заказов и {} позиций", orders.size(), details.size());
+    }
+
+    /**
+     * Вставка порции заголовков одним запросом. IDENTITY выдает ключи по порядку строк VALUES,
+     * поэтому возвращенные ключи после сортировки соответствуют заказам порции.
+     */
+    private void insertOrders(List<RestaurantOrder> chunk) {
+        String sql = INSERT_ORDERS + String.join(", ", Collections.nCopies(chunk.size(), ORDER_VALUES));
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id"});
+            int index = 1;
+            for (RestaurantOrder order : chunk) {
+                ps.setObject(index++, order.getBookingId());
+                ps.setObject(index++, order.getTableId());
+                ps.setBigDecimal(index++, order.getTotalAmount());
+                ps.setTimestamp(index++, Timestamp.valueOf(order.getCreatedAt()));
+            }
+            return ps;
+        }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != chunk.size()) {
+            throw new IllegalStateException("Получено " + keys.size() + " ключей для " + chunk.size() + " заказов");
+        }
+        long[] ids = keys.stream()
+                .mapToLong(row -> ((Number) row.values().iterator().next()).longValue())
+                .sorted()
+                .toArray();
+        for (int i = 0; i < ids.length; i++) {
+            chunk.get(i).setId(ids[i]);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Slf4j
+public class BookingArchiveService {
+
+    private final BookingRepository bookingRepository;
+
+    public BookingArchiveService(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Перенос одной порции бронирований, закончившихся до указанной даты, в booking_archive.
+     * Копирование и удаление выполняются set-based запросами в отдельной транзакции.
+     *
+     * @return количество перенесенных бронирований
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int archiveBatch(LocalDateTime threshold, int batchSize) {
+        List<Long> ids = bookingRepository.findIdsOlderThan(threshold, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        int copied = bookingRepository.copyToArchive(ids);
+        int deleted = bookingRepository.deleteByIds(ids);
+        log.debug("Порция архивации: скопировано {}, удалено {} бронирований", copied, deleted);
+        return ids.size();
+    }
+}
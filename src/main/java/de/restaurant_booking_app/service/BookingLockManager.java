@@ -0,0 +1,117 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.exception.BookingConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Блокировки с разбиением (striping) по паре (столик, день).
+ * <p>
+ * Бронирования разных столиков попадают, как правило, в разные полосы и выполняются
+ * параллельно; запросы на один столик и день выстраиваются в очередь друг за другом.
+ * Блокировка удерживается до завершения транзакции, чтобы проверка конфликта и
+ * сохранение бронирования были атомарны в пределах узла. Синхронизации транзакции, которые
+ * должны отработать до снятия блокировки, регистрируются с порядком {@link #BEFORE_UNLOCK_ORDER}.
+ */
+@Component
+@Slf4j
+public class BookingLockManager {
+
+    public static final int UNLOCK_ORDER = Ordered.LOWEST_PRECEDENCE;
+    public static final int BEFORE_UNLOCK_ORDER = UNLOCK_ORDER - 1;
+
+    private final ReentrantLock[] stripes;
+    private final Counter[] contention;
+    private final Timer waitTimer;
+    private final long timeoutMillis;
+
+    public BookingLockManager(MeterRegistry meterRegistry,
+                              @Value("${booking.lock.stripes:64}") int stripeCount,
+                              @Value("${booking.lock.timeout-ms:5000}") long timeoutMillis) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        this.contention = new Counter[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+            contention[i] = Counter.builder("booking.lock.contention")
+                    .description("Количество ожиданий блокировки полосы")
+                    .tag("stripe", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.waitTimer = Timer.builder("booking.lock.wait")
+                .description("Время ожидания блокировки полосы")
+                .register(meterRegistry);
+        this.timeoutMillis = timeoutMillis;
+        log.info("BookingLockManager инициализирован: {} полос", size);
+    }
+
+    /**
+     * Номера полос для всех дней интервала бронирования
+     */
+    public SortedSet<Integer> stripesFor(Long tableId, LocalDateTime startTime, LocalDateTime endTime) {
+        SortedSet<Integer> result = new TreeSet<>();
+        for (LocalDate day = startTime.toLocalDate(); !day.isAfter(endTime.toLocalDate()); day = day.plusDays(1)) {
+            int hash = Objects.hash(tableId, day);
+            result.add((hash ^ (hash >>> 16)) & (stripes.length - 1));
+        }
+        return result;
+    }
+
+    /**
+     * Захват полос в порядке возрастания номеров (без взаимных блокировок)
+     * с освобождением после коммита или отката текущей транзакции
+     */
+    public void lockUntilCompletion(SortedSet<Integer> stripeIndexes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка бронирования возможна только внутри транзакции");
+        }
+        for (int index : stripeIndexes) {
+            ReentrantLock lock = stripes[index];
+            if (!lock.tryLock()) {
+                contention[index].increment();
+                acquireWithTimeout(lock, index);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return UNLOCK_ORDER;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
+        }
+    }
+
+    private void acquireWithTimeout(ReentrantLock lock, int index) {
+        long started = System.nanoTime();
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Превышено время ожидания блокировки полосы {}", index);
+                throw new BookingConflictException("Столик сейчас бронируется другим пользователем, попробуйте позже");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingConflictException("Бронирование прервано во время ожидания блокировки");
+        } finally {
+            waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.exception.BookingConflictException;
+import de.restaurant_booking_app.exception.InvalidBookingException;
+import de.restaurant_booking_app.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Метрики операций с бронированиями.
+ * <p>
+ * Каждый этап создания, изменения и отмены (проверка, блокировка, поиск, проверка конфликта,
+ * сохранение, постановка уведомления) измеряется отдельным таймером с гистограммой,
+ * поэтому перцентили этапов можно считать в Prometheus. Операция целиком измеряется
+ * таймером с тегом исхода, конфликты считаются по месту обнаружения.
+ * Все метры регистрируются заранее, чтобы на горячем пути не было поиска в реестре.
+ */
+@Component
+public class BookingMetrics {
+
+    enum Operation { CREATE, UPDATE, CANCEL }
+
+    enum Stage { VALIDATE, LOCK, LOOKUP, CONFLICT_CHECK, SAVE, ENQUEUE }
+
+    enum Outcome { SUCCESS, CONFLICT, INVALID, NOT_FOUND, ERROR }
+
+    enum ConflictSource { INDEX, DATABASE, CONSTRAINT }
+
+    private final Timer[][] stageTimers;
+    private final Timer[][] operationTimers;
+    private final Counter[][] conflicts;
+
+    public BookingMetrics(MeterRegistry meterRegistry) {
+        Operation[] operations = Operation.values();
+        this.stageTimers = new Timer[operations.length][Stage.values().length];
+        this.operationTimers = new Timer[operations.length][Outcome.values().length];
+        this.conflicts = new Counter[operations.length][ConflictSource.values().length];
+        for (Operation operation : operations) {
+            for (Stage stage : Stage.values()) {
+                stageTimers[operation.ordinal()][stage.ordinal()] = Timer.builder("booking.stage")
+                        .description("Длительность этапа операции с бронированием")
+                        .tag("operation", tagValue(operation))
+                        .tag("stage", tagValue(stage))
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(10))
+                        .register(meterRegistry);
+            }
+            for (Outcome outcome : Outcome.values()) {
+                operationTimers[operation.ordinal()][outcome.ordinal()] = Timer.builder("booking.operation")
+                        .description("Длительность операции с бронированием")
+                        .tag("operation", tagValue(operation))
+                        .tag("outcome", tagValue(outcome))
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(10))
+                        .register(meterRegistry);
+            }
+            for (ConflictSource source : ConflictSource.values()) {
+                conflicts[operation.ordinal()][source.ordinal()] = Counter.builder("booking.conflicts")
+                        .description("Количество конфликтов бронирования")
+                        .tag("operation", tagValue(operation))
+                        .tag("source", tagValue(source))
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     * Выполнение операции целиком с учетом исхода по типу исключения
+     */
+    <T> T operation(Operation operation, Supplier<T> body) {
+        long started = System.nanoTime();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            T result = body.get();
+            outcome = Outcome.SUCCESS;
+            return result;
+        } catch (BookingConflictException e) {
+            outcome = Outcome.CONFLICT;
+            throw e;
+        } catch (InvalidBookingException e) {
+            outcome = Outcome.INVALID;
+            throw e;
+        } catch (ResourceNotFoundException e) {
+            outcome = Outcome.NOT_FOUND;
+            throw e;
+        } finally {
+            operationTimers[operation.ordinal()][outcome.ordinal()].record(Duration.ofNanos(System.nanoTime() - started));
+        }
+    }
+
+    <T> T stage(Operation operation, Stage stage, Supplier<T> body) {
+        return stageTimers[operation.ordinal()][stage.ordinal()].record(body);
+    }
+
+    void stage(Operation operation, Stage stage, Runnable body) {
+        stageTimers[operation.ordinal()][stage.ordinal()].record(body);
+    }
+
+    void conflict(Operation operation, ConflictSource source) {
+        conflicts[operation.ordinal()][source.ordinal()].increment();
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,216 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.BookingRequest;
+import de.restaurant_booking_app.dto.InboundMail;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор текста письма в заявку на бронирование: дата, время, количество гостей и контакты.
+ * <p>
+ * Класс не хранит состояния и вызывается параллельно из пула разбора {@link InboundBookingPipeline}.
+ * Дата без года относится к ближайшему будущему дню, время распознается в форматах «19:30»,
+ * «в 19», «at 7 pm».
+ */
+@Component
+public class BookingRequestParser {
+
+    private static final int EXCERPT_LENGTH = 1000;
+
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4})-(\\d{2})-(\\d{2})\\b");
+    private static final Pattern NUMERIC_DATE = Pattern.compile("\\b(\\d{1,2})[./](\\d{1,2})(?:[./](\\d{4}|\\d{2}))?\\b");
+    private static final Pattern TEXT_DATE = Pattern.compile(
+            "(?iu)\\b(\\d{1,2})\\s+(января|февраля|марта|апреля|мая|июня|июля|августа|сентября|октября|ноября|декабря)");
+    private static final Pattern RELATIVE_DATE = Pattern.compile("(?iu)(послезавтра|завтра|сегодня|tomorrow|today)");
+
+    private static final Pattern CLOCK_TIME = Pattern.compile("(?<![\\d.:])([01]?\\d|2[0-3]):([0-5]\\d)(?![\\d:])");
+    private static final Pattern SPOKEN_TIME = Pattern.compile(
+            "(?iu)(?:^|\\s)(?:в|к|at)\\s+(\\d{1,2})(?:[.](\\d{2}))?(?![\\d./])\\s*(pm|am|вечера|утра|дня)?");
+
+    private static final Pattern PARTY_SIZE = Pattern.compile(
+            "(?iu)\\b(\\d{1,2})\\s*(?:человек|чел|гост|персон|people|persons|guests|pax)");
+    private static final Pattern TABLE_FOR = Pattern.compile("(?iu)(?<!\\p{L})(?:на|for)\\s+(\\d{1,2})(?![\\d.:])");
+    private static final Pattern PARTY_WORD = Pattern.compile("(?iu)(вдвоем|двоих|троих|четверых|пятерых|шестерых|семерых|восьмерых)");
+
+    private static final Pattern NAME = Pattern.compile("(?imu)^\\s*(?:имя|name)\\s*:\\s*(.{2,100}?)\\s*$");
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+(?:\\.[\\w-]+)+");
+    private static final Pattern PHONE = Pattern.compile("\\+?\\d[\\d\\s()-]{8,18}\\d");
+
+    private static final List<String> MONTHS = List.of("января", "февраля", "марта", "апреля", "мая", "июня",
+            "июля", "августа", "сентября", "октября", "ноября", "декабря");
+    private static final Map<String, Integer> PARTY_WORDS = Map.of(
+            "вдвоем", 2, "двоих", 2, "троих", 3, "четверых", 4,
+            "пятерых", 5, "шестерых", 6, "семерых", 7, "восьмерых", 8);
+
+    /**
+     * Разбор заявки; {@code today} задает точку отсчета для относительных дат
+     */
+    public BookingRequest parse(InboundMail mail, LocalDate today) {
+        String text = (mail.getSubject() != null ? mail.getSubject() + "\n" : "")
+                + (mail.getText() != null ? mail.getText() : "");
+
+        BookingRequest request = BookingRequest.builder()
+                .mailUid(mail.getUid())
+                .receivedAt(mail.getSentAt())
+                .date(parseDate(text, today))
+                .time(parseTime(text))
+                .partySize(parsePartySize(text))
+                .customerPhone(parsePhone(text))
+                .excerpt(text.length() > EXCERPT_LENGTH ? text.substring(0, EXCERPT_LENGTH) : text)
+                .build();
+        fillContacts(request, mail.getFrom(), text);
+        return request;
+    }
+
+    private static LocalDate parseDate(String text, LocalDate today) {
+        Matcher iso = ISO_DATE.matcher(text);
+        while (iso.find()) {
+            LocalDate date = dateOf(Integer.parseInt(iso.group(1)), Integer.parseInt(iso.group(2)),
+                    Integer.parseInt(iso.group(3)));
+            if (date != null) {
+                return date;
+            }
+        }
+        Matcher numeric = NUMERIC_DATE.matcher(text);
+        while (numeric.find()) {
+            int day = Integer.parseInt(numeric.group(1));
+            int month = Integer.parseInt(numeric.group(2));
+            LocalDate date = numeric.group(3) != null
+                    ? dateOf(normalizeYear(Integer.parseInt(numeric.group(3))), month, day)
+                    : nearestDate(today, month, day);
+            if (date != null) {
+                return date;
+            }
+        }
+        Matcher textual = TEXT_DATE.matcher(text);
+        while (textual.find()) {
+            int month = MONTHS.indexOf(textual.group(2).toLowerCase(Locale.ROOT)) + 1;
+            LocalDate date = nearestDate(today, month, Integer.parseInt(textual.group(1)));
+            if (date != null) {
+                return date;
+            }
+        }
+        Matcher relative = RELATIVE_DATE.matcher(text);
+        if (relative.find()) {
+            return switch (relative.group(1).toLowerCase(Locale.ROOT)) {
+                case "послезавтра" -> today.plusDays(2);
+                case "завтра", "tomorrow" -> today.plusDays(1);
+                default -> today;
+            };
+        }
+        return null;
+    }
+
+    private static LocalTime parseTime(String text) {
+        Matcher clock = CLOCK_TIME.matcher(text);
+        if (clock.find()) {
+            return LocalTime.of(Integer.parseInt(clock.group(1)), Integer.parseInt(clock.group(2)));
+        }
+        Matcher spoken = SPOKEN_TIME.matcher(text);
+        while (spoken.find()) {
+            int hour = Integer.parseInt(spoken.group(1));
+            int minute = spoken.group(2) != null ? Integer.parseInt(spoken.group(2)) : 0;
+            String suffix = spoken.group(3) != null ? spoken.group(3).toLowerCase(Locale.ROOT) : "";
+            if (hour < 12 && (suffix.equals("pm") || suffix.equals("вечера") || suffix.equals("дня"))) {
+                hour += 12;
+            }
+            if (hour <= 23 && minute <= 59) {
+                return LocalTime.of(hour, minute);
+            }
+        }
+        return null;
+    }
+
+    private static Integer parsePartySize(String text) {
+        Matcher explicit = PARTY_SIZE.matcher(text);
+        if (explicit.find()) {
+            return positive(Integer.parseInt(explicit.group(1)));
+        }
+        Matcher word = PARTY_WORD.matcher(text);
+        if (word.find()) {
+            return PARTY_WORDS.get(word.group(1).toLowerCase(Locale.ROOT));
+        }
+        Matcher tableFor = TABLE_FOR.matcher(text);
+        if (tableFor.find()) {
+            return positive(Integer.parseInt(tableFor.group(1)));
+        }
+        return null;
+    }
+
+    private static String parsePhone(String text) {
+        Matcher phone = PHONE.matcher(text);
+        while (phone.find()) {
+            String candidate = phone.group().trim();
+            long digits = candidate.chars().filter(Character::isDigit).count();
+            // Даты и номера бронирований короче телефонного номера
+            if (digits >= 10 && digits <= 15) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Email и имя берутся из адреса отправителя, явно указанные в тексте имеют приоритет
+     */
+    private static void fillContacts(BookingRequest request, String from, String text) {
+        if (from != null) {
+            try {
+                InternetAddress address = new InternetAddress(from);
+                request.setCustomerEmail(address.getAddress());
+                request.setCustomerName(address.getPersonal());
+            } catch (AddressException e) {
+                Matcher email = EMAIL.matcher(from);
+                if (email.find()) {
+                    request.setCustomerEmail(email.group());
+                }
+            }
+        }
+        if (request.getCustomerEmail() == null) {
+            Matcher email = EMAIL.matcher(text);
+            if (email.find()) {
+                request.setCustomerEmail(email.group());
+            }
+        }
+        Matcher name = NAME.matcher(text);
+        if (name.find()) {
+            request.setCustomerName(name.group(1));
+        } else if (request.getCustomerName() == null && request.getCustomerEmail() != null) {
+            request.setCustomerName(request.getCustomerEmail().substring(0, request.getCustomerEmail().indexOf('@')));
+        }
+    }
+
+    private static LocalDate nearestDate(LocalDate today, int month, int day) {
+        LocalDate date = dateOf(today.getYear(), month, day);
+        if (date != null && date.isBefore(today)) {
+            date = dateOf(today.getYear() + 1, month, day);
+        }
+        return date;
+    }
+
+    private static LocalDate dateOf(int year, int month, int day) {
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int normalizeYear(int year) {
+        return year < 100 ? 2000 + year : year;
+    }
+
+    private static Integer positive(int value) {
+        return value > 0 ? value : null;
+    }
+}
@@ -1,49 +1,97 @@
 package de.restaurant_booking_app.service;
 
 import de.restaurant_booking_app.dto.BookingDto;
+import de.restaurant_booking_app.dto.BookingPage;
+import de.restaurant_booking_app.dto.BookingReminder;
 import de.restaurant_booking_app.exception.BookingConflictException;
 import de.restaurant_booking_app.exception.InvalidBookingException;
 import de.restaurant_booking_app.exception.ResourceNotFoundException;
 import de.restaurant_booking_app.model.Booking;
 import de.restaurant_booking_app.model.BookingStatus;
 import de.restaurant_booking_app.model.BookingTable;
+import de.restaurant_booking_app.model.NotificationType;
 import de.restaurant_booking_app.repository.BookingRepository;
 import de.restaurant_booking_app.repository.BookingTableRepository;
+import de.restaurant_booking_app.service.BookingMetrics.ConflictSource;
+import de.restaurant_booking_app.service.BookingMetrics.Operation;
+import de.restaurant_booking_app.service.BookingMetrics.Stage;
 
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.env.Environment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class BookingService {
 
+    // SQLSTATE нарушения ограничения EXCLUDE в PostgreSQL
+    private static final String EXCLUSION_VIOLATION_SQL_STATE = "23P01";
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    // Границы времени начала для постраничного вывода без фильтра по дате
+    private static final LocalDateTime PAGE_FROM = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime PAGE_TO = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     private final BookingTableRepository bookingTableRepository;
     private final BookingRepository bookingRepository;
-    private final EmailService emailService;
-    private final NotificationService notificationService;
-    private final String adminPhone;
+    private final NotificationOutboxService notificationOutboxService;
+    private final TableAvailabilityIndex tableAvailabilityIndex;
+    private final BookingLockManager bookingLockManager;
+    private final BookingArchiveService bookingArchiveService;
+    private final ReminderDispatcher reminderDispatcher;
+    private final ReminderScheduler reminderScheduler;
+    private final BookingMetrics bookingMetrics;
+    private final int cleanupBatchSize;
+    private final boolean overlapConstraintEnabled;
     private final ZoneId serverZoneId = ZoneId.systemDefault();
 
     public BookingService(BookingTableRepository bookingTableRepository,
                           BookingRepository bookingRepository,
-                          EmailService emailService,
-                          NotificationService notificationService,
-                          Environment env) {
+                          NotificationOutboxService notificationOutboxService,
+                          TableAvailabilityIndex tableAvailabilityIndex,
+                          BookingLockManager bookingLockManager,
+                          BookingArchiveService bookingArchiveService,
+                          ReminderDispatcher reminderDispatcher,
+                          ReminderScheduler reminderScheduler,
+                          BookingMetrics bookingMetrics,
+                          @Value("${booking.cleanup.batch-size:500}") int cleanupBatchSize,
+                          @Value("${booking.overlap-constraint.enabled:false}") boolean overlapConstraintEnabled) {
         this.bookingTableRepository = bookingTableRepository;
         this.bookingRepository = bookingRepository;
-        this.emailService = emailService;
-        this.notificationService = notificationService;
-        this.adminPhone = env.getProperty("admin.phone");
-        log.info("BookingService инициализирован. Часовой пояс сервера: {}", serverZoneId);
+        this.notificationOutboxService = notificationOutboxService;
+        this.tableAvailabilityIndex = tableAvailabilityIndex;
+        this.bookingLockManager = bookingLockManager;
+        this.bookingArchiveService = bookingArchiveService;
+        this.reminderDispatcher = reminderDispatcher;
+        this.reminderScheduler = reminderScheduler;
+        this.bookingMetrics = bookingMetrics;
+        this.cleanupBatchSize = cleanupBatchSize;
+        this.overlapConstraintEnabled = overlapConstraintEnabled;
+        log.info("BookingService инициализирован. Часовой пояс сервера: {}, проверка пересечений ограничением БД: {}",
+                serverZoneId, overlapConstraintEnabled);
     }
 
     public List<Booking> getAllBookings() {
@@ -51,6 +99,47 @@ public class BookingService {
         return bookingRepository.findAll();
     }
 
+    /**
+     * Постраничное получение бронирований, упорядоченных по (startTime, id).
+     * Курсор непрозрачен для клиента и передается обратно без изменений.
+     */
+    @Transactional(readOnly = true)
+    public BookingPage getBookingsPage(BookingStatus status, Long tableId, String cursor, int size) {
+        return getBookingsPage(status, tableId, null, cursor, size);
+    }
+
+    /**
+     * Постраничное получение бронирований, начинающихся в указанный день (без дня — все).
+     * Курсор следующей страницы действует вместе с тем же днем.
+     */
+    @Transactional(readOnly = true)
+    public BookingPage getBookingsPage(BookingStatus status, Long tableId, LocalDate day, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        log.debug("Получение страницы бронирований: status={}, tableId={}, day={}, cursor={}, size={}",
+                status, tableId, day, cursor, pageSize);
+
+        LocalDateTime afterStartTime = day != null ? day.atStartOfDay() : PAGE_FROM;
+        LocalDateTime before = day != null ? day.plusDays(1).atStartOfDay() : PAGE_TO;
+        // id начинаются с 1, поэтому первая страница включает бронирования, начинающиеся ровно в afterStartTime
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterStartTime = LocalDateTime.parse(position[0]);
+            afterId = Long.parseLong(position[1]);
+        }
+
+        // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<Booking> bookings = bookingRepository.findKeysetPage(status, tableId, afterStartTime, afterId,
+                before, PageRequest.of(0, pageSize + 1));
+
+        if (bookings.size() <= pageSize) {
+            return new BookingPage(bookings, null);
+        }
+        List<Booking> items = bookings.subList(0, pageSize);
+        Booking last = items.get(pageSize - 1);
+        return new BookingPage(items, encodeCursor(last.getStartTime(), last.getId()));
+    }
+
     public Booking getBookingById(Long id) {
         log.debug("Получение бронирования по ID: {}", id);
         return bookingRepository.findById(id)
@@ -70,6 +159,11 @@ public class BookingService {
         return bookingRepository.findTodayBookings();
     }
 
+    public List<Booking> getBookingsForDay(LocalDate day) {
+        log.debug("Получение подтвержденных бронирований на {}", day);
+        return bookingRepository.findDayBookings(day);
+    }
+
     public List<Booking> getBookingsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         log.debug("Получение бронирований с {} по {}", startDate, endDate);
         return bookingRepository.findByStartTimeBetweenAndEndTimeBetween(startDate, endDate, startDate, endDate);
@@ -92,20 +186,41 @@ public class BookingService {
 
     @Transactional
     public Booking createBooking(BookingDto bookingDto) {
+        return bookingMetrics.operation(Operation.CREATE, () -> doCreateBooking(bookingDto));
+    }
+
+    private Booking doCreateBooking(BookingDto bookingDto) {
         log.debug("Создание нового бронирования: {}", bookingDto);
 
-        validateBookingTime(bookingDto.getStartTime(), bookingDto.getEndTime());
+        bookingMetrics.stage(Operation.CREATE, Stage.VALIDATE,
+                () -> validateBookingTime(bookingDto.getStartTime(), bookingDto.getEndTime()));
+
+        bookingMetrics.stage(Operation.CREATE, Stage.LOCK, () -> bookingLockManager.lockUntilCompletion(
+                bookingLockManager.stripesFor(bookingDto.getTableId(), bookingDto.getStartTime(), bookingDto.getEndTime())));
 
-        BookingTable table = bookingTableRepository.findById(bookingDto.getTableId())
+        BookingTable table = bookingMetrics.stage(Operation.CREATE, Stage.LOOKUP, () -> findTable(bookingDto.getTableId()))
                 .orElseThrow(() -> {
                     log.error("Столик с ID {} не найден", bookingDto.getTableId());
                     return new ResourceNotFoundException("Столик с ID " + bookingDto.getTableId() + " не найден");
                 });
 
-        if (hasConflict(table.getId(), bookingDto.getStartTime(), bookingDto.getEndTime(), null)) {
+        // Карта занятости позволяет только быстро отказать, окончательное решение за БД
+        ConflictSource conflict = bookingMetrics.stage(Operation.CREATE, Stage.CONFLICT_CHECK, () -> {
+            if (tableAvailabilityIndex.isOccupied(table.getId(), bookingDto.getStartTime(), bookingDto.getEndTime())) {
+                return ConflictSource.INDEX;
+            }
+            if (!overlapConstraintEnabled && hasConflictInDatabase(table.getId(), bookingDto.getStartTime(), bookingDto.getEndTime(), null)) {
+                return ConflictSource.DATABASE;
+            }
+            return null;
+        });
+        if (conflict != null) {
+            bookingMetrics.conflict(Operation.CREATE, conflict);
             log.warn("Конфликт при бронировании столика #{}", table.getTableNumber());
             throw new BookingConflictException("Столик #" + table.getTableNumber() + " уже забронирован на указанное время");
         }
+        tableAvailabilityIndex.markBusy(table.getId(), bookingDto.getStartTime(), bookingDto.getEndTime());
+        invalidateAvailabilityAfterCompletion(table.getId(), bookingDto.getStartTime(), bookingDto.getEndTime(), true);
 
         Booking booking = Booking.builder()
                 .table(table)
@@ -117,60 +232,80 @@ public class BookingService {
                 .status(BookingStatus.CONFIRMED)
                 .build();
 
-        Booking savedBooking = bookingRepository.save(booking);
+        Booking savedBooking = bookingMetrics.stage(Operation.CREATE, Stage.SAVE,
+                () -> saveWithOverlapCheck(booking, table, Operation.CREATE));
         log.info("Создано бронирование с ID: {}", savedBooking.getId());
 
-        try {
-            emailService.sendBookingConfirmation(savedBooking);
-            notificationService.sendBookingConfirmationSms(savedBooking);
-            notificationService.sendAdminNotificationSms(savedBooking, adminPhone);
-        } catch (Exception e) {
-            log.error("Ошибка при отправке уведомлений для бронирования ID {}: {}", savedBooking.getId(), e.getMessage(), e);
-        }
+        bookingMetrics.stage(Operation.CREATE, Stage.ENQUEUE,
+                () -> notificationOutboxService.enqueue(NotificationType.BOOKING_CONFIRMATION, savedBooking.getId()));
+        runAfterCommit(() -> reminderScheduler.schedule(savedBooking.getId(), savedBooking.getStartTime()));
 
         return savedBooking;
     }
 
     @Transactional
     public Booking cancelBooking(Long id) {
+        return bookingMetrics.operation(Operation.CANCEL, () -> doCancelBooking(id));
+    }
+
+    private Booking doCancelBooking(Long id) {
         log.debug("Отмена бронирования с ID: {}", id);
 
-        Booking booking = getBookingById(id);
+        Booking booking = bookingMetrics.stage(Operation.CANCEL, Stage.LOOKUP, () -> getBookingById(id));
         booking.setStatus(BookingStatus.CANCELLED);
+        invalidateAvailabilityAfterCompletion(booking.getTable().getId(), booking.getStartTime(), booking.getEndTime(), false);
 
-        Booking cancelledBooking = bookingRepository.save(booking);
+        Booking cancelledBooking = bookingMetrics.stage(Operation.CANCEL, Stage.SAVE, () -> bookingRepository.save(booking));
         log.info("Бронирование с ID {} отменено", id);
 
-        try {
-            emailService.sendBookingCancellation(cancelledBooking);
-            notificationService.sendBookingCancellationSms(cancelledBooking);
-        } catch (Exception e) {
-            log.error("Ошибка при отправке уведомлений об отмене бронирования ID {}: {}", id, e.getMessage(), e);
-        }
+        bookingMetrics.stage(Operation.CANCEL, Stage.ENQUEUE,
+                () -> notificationOutboxService.enqueue(NotificationType.BOOKING_CANCELLATION, cancelledBooking.getId()));
+        runAfterCommit(() -> reminderScheduler.cancel(id));
 
         return cancelledBooking;
     }
 
     @Transactional
     public Booking updateBooking(Long id, BookingDto bookingDto) {
+        return bookingMetrics.operation(Operation.UPDATE, () -> doUpdateBooking(id, bookingDto));
+    }
+
+    private Booking doUpdateBooking(Long id, BookingDto bookingDto) {
         log.debug("Обновление бронирования с ID: {}", id);
 
-        validateBookingTime(bookingDto.getStartTime(), bookingDto.getEndTime());
+        bookingMetrics.stage(Operation.UPDATE, Stage.VALIDATE,
+                () -> validateBookingTime(bookingDto.getStartTime(), bookingDto.getEndTime()));
+
+        Booking existingBooking = bookingMetrics.stage(Operation.UPDATE, Stage.LOOKUP, () -> getBookingById(id));
+
+        SortedSet<Integer> stripes = bookingLockManager.stripesFor(existingBooking.getTable().getId(),
+                existingBooking.getStartTime(), existingBooking.getEndTime());
+        stripes.addAll(bookingLockManager.stripesFor(bookingDto.getTableId(), bookingDto.getStartTime(), bookingDto.getEndTime()));
+        bookingMetrics.stage(Operation.UPDATE, Stage.LOCK, () -> bookingLockManager.lockUntilCompletion(stripes));
 
-        Booking existingBooking = getBookingById(id);
-        BookingTable table = bookingTableRepository.findById(bookingDto.getTableId())
+        BookingTable table = bookingMetrics.stage(Operation.UPDATE, Stage.LOOKUP, () -> findTable(bookingDto.getTableId()))
                 .orElseThrow(() -> new ResourceNotFoundException("Столик с ID " + bookingDto.getTableId() + " не найден"));
 
         if (!existingBooking.getTable().getId().equals(table.getId())
                 || !existingBooking.getStartTime().equals(bookingDto.getStartTime())
                 || !existingBooking.getEndTime().equals(bookingDto.getEndTime())) {
 
-            if (hasConflict(table.getId(), bookingDto.getStartTime(), bookingDto.getEndTime(), id)) {
+            if (!overlapConstraintEnabled && bookingMetrics.stage(Operation.UPDATE, Stage.CONFLICT_CHECK,
+                    () -> hasConflict(table.getId(), bookingDto.getStartTime(), bookingDto.getEndTime(), id))) {
+                bookingMetrics.conflict(Operation.UPDATE, ConflictSource.DATABASE);
                 log.warn("Конфликт при обновлении бронирования столика #{}", table.getTableNumber());
                 throw new BookingConflictException("Столик #" + table.getTableNumber() + " уже забронирован на указанное время");
             }
         }
 
+        invalidateAvailabilityAfterCompletion(existingBooking.getTable().getId(),
+                existingBooking.getStartTime(), existingBooking.getEndTime(), false);
+        invalidateAvailabilityAfterCompletion(table.getId(), bookingDto.getStartTime(), bookingDto.getEndTime(), false);
+
+        if (!existingBooking.getStartTime().equals(bookingDto.getStartTime())) {
+            // Новое время начала — новое напоминание
+            existingBooking.setReminderSent(false);
+        }
         existingBooking.setTable(table);
         existingBooking.setStartTime(bookingDto.getStartTime());
         existingBooking.setEndTime(bookingDto.getEndTime());
@@ -178,19 +313,30 @@ public class BookingService {
         existingBooking.setCustomerEmail(bookingDto.getCustomerEmail());
         existingBooking.setCustomerPhone(bookingDto.getCustomerPhone());
 
-        Booking updatedBooking = bookingRepository.save(existingBooking);
+        Booking updatedBooking = bookingMetrics.stage(Operation.UPDATE, Stage.SAVE,
+                () -> saveWithOverlapCheck(existingBooking, table, Operation.UPDATE));
         log.info("Бронирование с ID {} обновлено", updatedBooking.getId());
 
-        try {
-            emailService.sendBookingUpdate(updatedBooking);
-        } catch (Exception e) {
-            log.error("Ошибка при отправке уведомления об обновлении бронирования ID {}: {}", updatedBooking.getId(), e.getMessage(), e);
-        }
+        bookingMetrics.stage(Operation.UPDATE, Stage.ENQUEUE,
+                () -> notificationOutboxService.enqueue(NotificationType.BOOKING_UPDATE, updatedBooking.getId()));
+        LocalDateTime updatedStartTime = updatedBooking.getStartTime();
+        runAfterCommit(() -> reminderScheduler.schedule(id, updatedStartTime));
 
         return updatedBooking;
     }
 
+    /**
+     * Проверка пересечения. Карта занятости используется только для быстрого отказа и только
+     * без исключаемого бронирования: его собственные слоты в карте тоже отмечены.
+     */
     public boolean hasConflict(Long tableId, LocalDateTime startTime, LocalDateTime endTime, Long excludeBookingId) {
+        if (excludeBookingId == null && tableAvailabilityIndex.isOccupied(tableId, startTime, endTime)) {
+            return true;
+        }
+        return hasConflictInDatabase(tableId, startTime, endTime, excludeBookingId);
+    }
+
+    private boolean hasConflictInDatabase(Long tableId, LocalDateTime startTime, LocalDateTime endTime, Long excludeBookingId) {
         List<Booking> conflicts = bookingRepository.findConflictingBookings(tableId, startTime, endTime);
         if (excludeBookingId != null) {
             return conflicts.stream().anyMatch(b -> !b.getId().equals(excludeBookingId));
@@ -201,7 +347,17 @@ public class BookingService {
     public List<BookingTable> findAvailableTables(Integer capacity, LocalDateTime startTime, LocalDateTime endTime) {
         validateBookingTime(startTime, endTime);
         log.debug("Поиск доступных столиков на {} человек с {} по {}", capacity, startTime, endTime);
-        return bookingTableRepository.findAvailableTables(capacity, startTime, endTime);
+        List<BookingTable> candidates = bookingTableRepository.findByCapacityGreaterThanEqualOrderByCapacityAsc(capacity).stream()
+                .filter(table -> !tableAvailabilityIndex.isOccupied(table.getId(), startTime, endTime))
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        // Оставшихся кандидатов подтверждает БД одним запросом
+        Set<Long> booked = new HashSet<>(bookingRepository.findBookedTableIds(startTime, endTime));
+        return candidates.stream()
+                .filter(table -> !booked.contains(table.getId()))
+                .collect(Collectors.toList());
     }
 
     @Transactional
@@ -209,44 +365,48 @@ public class BookingService {
         log.debug("Удаление бронирования с ID: {}", id);
         Booking booking = getBookingById(id);
         bookingRepository.delete(booking);
+        invalidateAvailabilityAfterCompletion(booking.getTable().getId(), booking.getStartTime(), booking.getEndTime(), false);
+        runAfterCommit(() -> reminderScheduler.cancel(id));
         log.info("Бронирование с ID {} успешно удалено", id);
     }
 
+    /**
+     * Перенос старых бронирований в архив порциями; каждая порция коммитится отдельно,
+     * поэтому прерванный запуск просто продолжится со следующего вызова
+     */
     @Scheduled(cron = "0 0 3 * * *")
-    @Transactional
     public void cleanupOldBookings() {
         log.info("Запуск очистки старых бронирований");
 
         LocalDateTime threshold = LocalDateTime.now().minusWeeks(1);
-        List<Booking> oldBookings = bookingRepository.findBookingsOlderThan(threshold);
-
-        if (!CollectionUtils.isEmpty(oldBookings)) {
-            bookingRepository.deleteAll(oldBookings);
-            log.info("Удалено {} старых бронирований", oldBookings.size());
+        long archived = 0;
+        int batch;
+        do {
+            batch = bookingArchiveService.archiveBatch(threshold, cleanupBatchSize);
+            archived += batch;
+        } while (batch == cleanupBatchSize);
+
+        if (archived > 0) {
+            log.info("Перенесено в архив {} старых бронирований", archived);
         } else {
             log.info("Старые бронирования отсутствуют для удаления");
         }
+        tableAvailabilityIndex.evictBefore(threshold.toLocalDate());
     }
 
-    @Scheduled(cron = "0 0 10 * * *")
-    @Transactional
+    /**
+     * Разовая рассылка напоминаний на сегодня. По умолчанию отключена («-»):
+     * напоминания отправляет ReminderScheduler за заданное время до начала каждого бронирования.
+     */
+    @Scheduled(cron = "${notification.reminder.daily-cron:-}")
+    @Transactional(readOnly = true)
     public void sendDailyReminders() {
         log.info("Запуск отправки напоминаний о бронированиях");
 
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfDay = now.with(LocalTime.MIN);
-        LocalDateTime endOfDay = now.with(LocalTime.MAX);
-
-        List<Booking> bookings = findConfirmedBookingsInDateRange(startOfDay, endOfDay);
-
-        log.info("Найдено {} бронирований для отправки напоминаний", bookings.size());
-
-        for (Booking booking : bookings) {
-            try {
-                notificationService.sendBookingReminderSms(booking);
-            } catch (Exception e) {
-                log.error("Ошибка при отправке напоминания для бронирования ID {}: {}", booking.getId(), e.getMessage(), e);
-            }
+        LocalDate today = LocalDate.now();
+        try (Stream<BookingReminder> reminders = bookingRepository.streamRemindersStartingBetween(
+                BookingStatus.CONFIRMED, today.atStartOfDay(), today.plusDays(1).atStartOfDay())) {
+            reminderDispatcher.dispatch(reminders);
         }
     }
 
@@ -257,6 +417,106 @@ public class BookingService {
         );
     }
 
+    private static String encodeCursor(LocalDateTime startTime, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((startTime + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException(cursor);
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidBookingException("Некорректный курсор страницы");
+        }
+    }
+
+    /**
+     * При включенном ограничении EXCLUDE пересечения отсекает сама БД, блокировка строки столика не нужна
+     */
+    private Optional<BookingTable> findTable(Long tableId) {
+        return overlapConstraintEnabled
+                ? bookingTableRepository.findById(tableId)
+                : bookingTableRepository.findByIdForUpdate(tableId);
+    }
+
+    /**
+     * Сохранение бронирования: при включенном ограничении EXCLUDE выполняется вставка
+     * с немедленным flush, а нарушение ограничения превращается в конфликт бронирования
+     */
+    private Booking saveWithOverlapCheck(Booking booking, BookingTable table, Operation operation) {
+        if (!overlapConstraintEnabled) {
+            return bookingRepository.save(booking);
+        }
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                bookingMetrics.conflict(operation, ConflictSource.CONSTRAINT);
+                log.warn("Конфликт при бронировании столика #{} (ограничение БД)", table.getTableNumber());
+                throw new BookingConflictException("Столик #" + table.getTableNumber() + " уже забронирован на указанное время");
+            }
+            throw e;
+        }
+    }
+
+    private boolean isOverlapViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && EXCLUSION_VIOLATION_SQL_STATE.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Сброс карты занятости после завершения транзакции.
+     * Для нового бронирования (rollbackOnly) слоты уже захвачены и сбрасываются только при откате.
+     */
+    private void invalidateAvailabilityAfterCompletion(Long tableId, LocalDateTime startTime, LocalDateTime endTime,
+                                                       boolean rollbackOnly) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (!rollbackOnly) {
+                tableAvailabilityIndex.invalidate(tableId, startTime, endTime);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Карта очищается до снятия блокировки полосы: ожидающий запрос не должен увидеть
+            // слоты, отмеченные откатившейся транзакцией
+            @Override
+            public int getOrder() {
+                return BookingLockManager.BEFORE_UNLOCK_ORDER;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!rollbackOnly || status != STATUS_COMMITTED) {
+                    tableAvailabilityIndex.invalidate(tableId, startTime, endTime);
+                }
+            }
+        });
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     private void validateBookingTime(LocalDateTime startTime, LocalDateTime endTime) {
         LocalDateTime now = LocalDateTime.now();
         if (startTime == null || endTime == null) {
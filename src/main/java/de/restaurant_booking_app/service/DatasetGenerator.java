@@ -0,0 +1,481 @@
+package de.restaurant_booking_app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генератор синтетических данных для нагрузочных тестов и проверки планов запросов.
+ * <p>
+ * Запускается с профилем {@code datagen} (параметры — в application-datagen.properties) и
+ * загружает столики, пункты меню и бронирования с реалистичным распределением времени начала
+ * (обеденный и вечерний пики, выходные), размера компании и доли отмен. Подтвержденные
+ * бронирования одного столика не пересекаются. Результат полностью определяется {@code datagen.seed}
+ * и {@code datagen.start-date}: столики выбираются по порядковому номеру среди созданных,
+ * а id из БД подставляются только при записи. На PostgreSQL бронирования загружаются через COPY, на остальных БД — пакетными INSERT.
+ */
+@Component
+@Profile("datagen")
+@Order(2)
+@Slf4j
+public class DatasetGenerator implements CommandLineRunner {
+
+    private static final int SLOT_MINUTES = 15;
+    private static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final int TABLE_ATTEMPTS = 4;
+    // Бронирований на столик в пиковый день: с учетом вечернего пика и случайного выбора столика
+    private static final int TURNS_PER_TABLE = 2;
+
+    // Часы начала бронирований и их веса: обеденный и вечерний пики
+    private static final int[] START_HOURS = {11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22};
+    private static final int[] START_HOUR_WEIGHTS = {3, 9, 10, 6, 3, 3, 6, 12, 15, 12, 6, 2};
+    // Вес размера компании; индекс — количество гостей
+    private static final int[] PARTY_SIZE_WEIGHTS = {0, 5, 40, 15, 25, 5, 6, 2, 2};
+    private static final int[] CAPACITIES = {2, 4, 6, 8};
+    private static final int[] CAPACITY_WEIGHTS = {35, 40, 15, 10};
+
+    private static final String[] FIRST_NAMES = {
+            "Иван", "Анна", "Сергей", "Мария", "Дмитрий", "Елена", "Алексей", "Ольга",
+            "Андрей", "Наталья", "Михаил", "Татьяна", "Павел", "Светлана", "Николай", "Ирина"
+    };
+    private static final String[] LAST_NAMES = {
+            "Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев", "Петров", "Соколов", "Михайлов",
+            "Новиков", "Федоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семенов", "Егоров"
+    };
+    private static final String[] DISHES = {
+            "Борщ", "Солянка", "Цезарь", "Оливье", "Пельмени", "Блины", "Стейк", "Лосось",
+            "Ризотто", "Паста", "Тирамису", "Медовик", "Морс", "Лимонад", "Жаркое", "Сырники"
+    };
+    private static final String[] DISH_DETAILS = {
+            "с курицей", "со сметаной", "с грибами", "домашний", "по-деревенски", "с ягодами",
+            "на гриле", "с овощами", "фирменный", "с сыром", "острый", "с зеленью"
+    };
+    private static final String[] CATEGORIES = {
+            "APPETIZER", "SOUP", "SALAD", "MAIN_COURSE", "SIDE_DISH", "DESSERT", "BEVERAGE", "ALCOHOL", "SPECIAL"
+    };
+
+    private static final String BOOKING_COLUMNS =
+            "table_id, start_time, end_time, customer_name, customer_email, customer_phone, status, created_at, updated_at";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${datagen.seed:42}")
+    private long seed;
+
+    @Value("${datagen.tables:0}")
+    private int tableCount;
+
+    @Value("${datagen.menu-items:300}")
+    private int menuItemCount;
+
+    @Value("${datagen.bookings:1000000}")
+    private long bookingCount;
+
+    @Value("${datagen.days:730}")
+    private int days;
+
+    @Value("${datagen.days-ahead:60}")
+    private int daysAhead;
+
+    @Value("${datagen.start-date:}")
+    private String startDate;
+
+    @Value("${datagen.cancellation-rate:0.1}")
+    private double cancellationRate;
+
+    @Value("${datagen.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${datagen.exit:true}")
+    private boolean exitAfterGeneration;
+
+    public DatasetGenerator(DataSource dataSource, JdbcTemplate jdbcTemplate, ConfigurableApplicationContext context) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        long started = System.nanoTime();
+        Random random = new Random(seed);
+        LocalDate firstDay = firstDay();
+        double[] dayWeights = dayWeights(firstDay);
+        int tables = tableCount(dayWeights);
+        log.info("Генерация данных: seed={}, столиков {}, блюд {}, бронирований {} за {} дней с {}",
+                seed, tables, menuItemCount, bookingCount, days, firstDay);
+
+        int[] capacities = new int[tables];
+        Map<Integer, int[]> tablesByCapacity = planTables(random, capacities);
+        long[] tableIds = insertTables(capacities);
+        generateMenuItems(random);
+        long generated = generateBookings(random, firstDay, dayWeights, tablesByCapacity, tableIds);
+
+        log.info("Генерация завершена за {} с: загружено {} бронирований из {} запрошенных",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started), generated, bookingCount);
+        if (exitAfterGeneration) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private LocalDate firstDay() {
+        if (startDate != null && !startDate.isBlank()) {
+            return LocalDate.parse(startDate.trim());
+        }
+        log.warn("datagen.start-date не задан: даты бронирований зависят от дня запуска");
+        return LocalDate.now().minusDays(days - daysAhead);
+    }
+
+    private double[] dayWeights(LocalDate firstDay) {
+        double[] dayWeights = new double[days];
+        for (int d = 0; d < days; d++) {
+            dayWeights[d] = dayWeight(firstDay.plusDays(d).getDayOfWeek());
+        }
+        return dayWeights;
+    }
+
+    /**
+     * Число столиков: заданное значение проверяется, 0 — расчет по пиковому дню
+     */
+    private int tableCount(double[] dayWeights) {
+        double totalWeight = Arrays.stream(dayWeights).sum();
+        double maxWeight = Arrays.stream(dayWeights).max().orElse(0);
+        long peakDayBookings = (long) Math.ceil(bookingCount * maxWeight / totalWeight);
+        int required = (int) Math.max(1, (peakDayBookings + TURNS_PER_TABLE - 1) / TURNS_PER_TABLE);
+        if (tableCount <= 0) {
+            return required;
+        }
+        if (tableCount < required) {
+            throw new IllegalStateException("Для " + peakDayBookings + " бронирований в пиковый день нужно не менее "
+                    + required + " столиков, задано datagen.tables=" + tableCount
+                    + " (0 — рассчитать автоматически)");
+        }
+        return tableCount;
+    }
+
+    /**
+     * Вместимость столиков и их порядковые номера по вместимости; не зависит от содержимого БД
+     */
+    private static Map<Integer, int[]> planTables(Random random, int[] capacities) {
+        Map<Integer, List<Integer>> grouped = new TreeMap<>();
+        for (int i = 0; i < capacities.length; i++) {
+            capacities[i] = CAPACITIES[weighted(random, CAPACITY_WEIGHTS)];
+            grouped.computeIfAbsent(capacities[i], k -> new ArrayList<>()).add(i);
+        }
+        Map<Integer, int[]> result = new TreeMap<>();
+        grouped.forEach((capacity, indexes) -> result.put(capacity, indexes.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+
+    /**
+     * Столики с номерами после уже существующих; возвращает id столиков по порядковому номеру
+     */
+    private long[] insertTables(int[] capacities) {
+        Integer maxNumber = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(table_number), 0) FROM booking_tables", Integer.class);
+        int firstNumber = (maxNumber != null ? maxNumber : 0) + 1;
+        List<Object[]> rows = new ArrayList<>(capacities.length);
+        for (int i = 0; i < capacities.length; i++) {
+            // VIP — каждый десятый столик
+            rows.add(new Object[]{firstNumber + i, capacities[i], i % 10 == 9});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO booking_tables (table_number, capacity, is_vip) VALUES (?, ?, ?)", rows);
+
+        long[] ids = new long[capacities.length];
+        jdbcTemplate.query("SELECT id, table_number FROM booking_tables WHERE table_number >= ?",
+                rs -> {
+                    ids[rs.getInt("table_number") - firstNumber] = rs.getLong("id");
+                }, firstNumber);
+        log.info("Добавлено {} столиков", capacities.length);
+        return ids;
+    }
+
+    private void generateMenuItems(Random random) {
+        List<Object[]> rows = new ArrayList<>(menuItemCount);
+        for (int i = 0; i < menuItemCount; i++) {
+            String name = DISHES[random.nextInt(DISHES.length)] + " " + DISH_DETAILS[random.nextInt(DISH_DETAILS.length)];
+            boolean vegan = random.nextInt(10) == 0;
+            rows.add(new Object[]{
+                    name + " №" + (i + 1),
+                    name + " " + DISH_DETAILS[random.nextInt(DISH_DETAILS.length)],
+                    BigDecimal.valueOf(150 + random.nextInt(40) * 50L),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    random.nextInt(10) != 0,
+                    vegan || random.nextInt(4) == 0,
+                    vegan,
+                    random.nextInt(5) == 0
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO menu_items (name, description, price, category, available, " +
+                "is_vegetarian, is_vegan, is_gluten_free) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        log.info("Добавлено {} пунктов меню", menuItemCount);
+    }
+
+    /**
+     * Бронирования по дням: число бронирований дня пропорционально весу дня недели,
+     * свободный интервал ищется в битовой карте занятости столиков этого дня
+     */
+    private long generateBookings(Random random, LocalDate firstDay, double[] dayWeights,
+                                  Map<Integer, int[]> tablesByCapacity, long[] tableIds) throws SQLException, IOException {
+        double totalWeight = Arrays.stream(dayWeights).sum();
+        long[][] occupancy = new long[tableIds.length][2];
+        long generated = 0;
+        long skipped = 0;
+        double cumulative = 0;
+        try (Connection connection = dataSource.getConnection();
+             BookingSink sink = openSink(connection)) {
+            for (int d = 0; d < days; d++) {
+                long before = Math.round(cumulative / totalWeight * bookingCount);
+                cumulative += dayWeights[d];
+                long dayBookings = Math.round(cumulative / totalWeight * bookingCount) - before;
+                LocalDate day = firstDay.plusDays(d);
+                for (long[] bits : occupancy) {
+                    Arrays.fill(bits, 0L);
+                }
+
+                for (long i = 0; i < dayBookings; i++) {
+                    int guests = weighted(random, PARTY_SIZE_WEIGHTS);
+                    int startSlot = START_HOURS[weighted(random, START_HOUR_WEIGHTS)] * 60 / SLOT_MINUTES + random.nextInt(4);
+                    int durationSlots = (guests <= 2 ? 6 : guests <= 4 ? 8 : 10) + random.nextInt(3);
+                    int endSlot = Math.min(startSlot + durationSlots, SLOTS_PER_DAY - 1);
+
+                    int table = findFreeTable(random, tablesByCapacity, guests, occupancy, startSlot, endSlot);
+                    if (table < 0) {
+                        skipped++;
+                        continue;
+                    }
+                    LocalDateTime start = day.atStartOfDay().plusMinutes((long) startSlot * SLOT_MINUTES);
+                    LocalDateTime end = day.atStartOfDay().plusMinutes((long) endSlot * SLOT_MINUTES);
+                    LocalDateTime createdAt = start.minusHours(1 + random.nextInt(24 * 21));
+                    String status = random.nextDouble() < cancellationRate ? "CANCELLED" : "CONFIRMED";
+                    String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                    String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                    int guestNumber = random.nextInt(1_000_000);
+                    sink.add(tableIds[table], start, end,
+                            firstName + " " + lastName,
+                            "guest" + guestNumber + "@example.com",
+                            String.format("+7999%07d", guestNumber),
+                            status, createdAt);
+                    generated++;
+                    if (generated % 1_000_000 == 0) {
+                        log.info("Сгенерировано {} бронирований (день {})", generated, day);
+                    }
+                }
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Пропущено {} бронирований: не хватило свободных столиков, увеличьте datagen.tables", skipped);
+        }
+        return generated;
+    }
+
+    /**
+     * Поиск столика подходящей вместимости, свободного в слотах [startSlot, endSlot]
+     * (границы включительно, как в проверке пересечений бронирований); возвращает порядковый номер столика
+     */
+    private int findFreeTable(Random random, Map<Integer, int[]> tablesByCapacity, int guests,
+                              long[][] occupancy, int startSlot, int endSlot) {
+        long mask0 = rangeMask(startSlot, endSlot, 0);
+        long mask1 = rangeMask(startSlot, endSlot, 1);
+        for (Map.Entry<Integer, int[]> entry : tablesByCapacity.entrySet()) {
+            if (entry.getKey() < guests) {
+                continue;
+            }
+            int[] tables = entry.getValue();
+            for (int attempt = 0; attempt < TABLE_ATTEMPTS; attempt++) {
+                int table = tables[random.nextInt(tables.length)];
+                long[] bits = occupancy[table];
+                if ((bits[0] & mask0) == 0 && (bits[1] & mask1) == 0) {
+                    bits[0] |= mask0;
+                    bits[1] |= mask1;
+                    return table;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long rangeMask(int startSlot, int endSlot, int word) {
+        int from = Math.max(startSlot, word * Long.SIZE) - word * Long.SIZE;
+        int to = Math.min(endSlot, word * Long.SIZE + Long.SIZE - 1) - word * Long.SIZE;
+        if (from > to) {
+            return 0L;
+        }
+        long upper = to == Long.SIZE - 1 ? -1L : (1L << (to + 1)) - 1;
+        return upper & (-1L << from);
+    }
+
+    private static double dayWeight(DayOfWeek dayOfWeek) {
+        return switch (dayOfWeek) {
+            case FRIDAY -> 1.5;
+            case SATURDAY -> 1.7;
+            case SUNDAY -> 1.3;
+            case MONDAY -> 0.7;
+            default -> 1.0;
+        };
+    }
+
+    private static int weighted(Random random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int point = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            point -= weights[i];
+            if (point < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private BookingSink openSink(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        if ("PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return new CopySink(connection, batchSize * 10);
+        }
+        return new BatchSink(connection, batchSize);
+    }
+
+    /**
+     * Приемник строк бронирований с фиксацией транзакции после каждой порции
+     */
+    private interface BookingSink extends AutoCloseable {
+
+        void add(long tableId, LocalDateTime start, LocalDateTime end, String name, String email, String phone,
+                 String status, LocalDateTime createdAt) throws SQLException, IOException;
+
+        @Override
+        void close() throws SQLException, IOException;
+    }
+
+    /**
+     * Загрузка через COPY ... FROM STDIN (PostgreSQL)
+     */
+    private static final class CopySink implements BookingSink {
+
+        private final Connection connection;
+        private final CopyManager copyManager;
+        private final int chunkSize;
+        private final StringBuilder buffer = new StringBuilder();
+        private int rows;
+
+        private CopySink(Connection connection, int chunkSize) throws SQLException {
+            this.connection = connection;
+            this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void add(long tableId, LocalDateTime start, LocalDateTime end, String name, String email, String phone,
+                        String status, LocalDateTime createdAt) throws SQLException, IOException {
+            buffer.append(tableId).append(',').append(Timestamp.valueOf(start)).append(',')
+                    .append(Timestamp.valueOf(end)).append(',').append(name).append(',')
+                    .append(email).append(',').append(phone).append(',').append(status).append(',')
+                    .append(Timestamp.valueOf(createdAt)).append(',').append(Timestamp.valueOf(createdAt)).append('\n');
+            if (++rows == chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException, IOException {
+            if (rows == 0) {
+                return;
+            }
+            copyManager.copyIn("COPY booking (" + BOOKING_COLUMNS + ") FROM STDIN WITH (FORMAT csv)",
+                    new StringReader(buffer.toString()));
+            connection.commit();
+            buffer.setLength(0);
+            rows = 0;
+        }
+
+        @Override
+        public void close() throws SQLException, IOException {
+            flush();
+            try (PreparedStatement analyze = connection.prepareStatement("ANALYZE booking")) {
+                analyze.execute();
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * Загрузка пакетными INSERT (H2 и другие БД)
+     */
+    private static final class BatchSink implements BookingSink {
+
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final int batchSize;
+        private int rows;
+
+        private BatchSink(Connection connection, int batchSize) throws SQLException {
+            this.connection = connection;
+            this.statement = connection.prepareStatement(
+                    "INSERT INTO booking (" + BOOKING_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void add(long tableId, LocalDateTime start, LocalDateTime end, String name, String email, String phone,
+                        String status, LocalDateTime createdAt) throws SQLException {
+            statement.setLong(1, tableId);
+            statement.setTimestamp(2, Timestamp.valueOf(start));
+            statement.setTimestamp(3, Timestamp.valueOf(end));
+            statement.setString(4, name);
+            statement.setString(5, email);
+            statement.setString(6, phone);
+            statement.setString(7, status);
+            statement.setTimestamp(8, Timestamp.valueOf(createdAt));
+            statement.setTimestamp(9, Timestamp.valueOf(createdAt));
+            statement.addBatch();
+            if (++rows == batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (rows == 0) {
+                return;
+            }
+            statement.executeBatch();
+            connection.commit();
+            rows = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            flush();
+            statement.close();
+        }
+    }
+}
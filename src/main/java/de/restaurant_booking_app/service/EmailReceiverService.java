@@ -1,27 +1,68 @@
 package de.restaurant_booking_app.service;
 
-import jakarta.mail.BodyPart;
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPMessage;
+import com.sun.mail.imap.IMAPSSLStore;
+import com.sun.mail.imap.IMAPStore;
+import com.sun.mail.util.FolderClosedIOException;
+import de.restaurant_booking_app.dto.InboundMail;
+import de.restaurant_booking_app.model.MailboxCursor;
+import de.restaurant_booking_app.repository.MailboxCursorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.FetchProfile;
 import jakarta.mail.Flags;
 import jakarta.mail.Folder;
+import jakarta.mail.FolderClosedException;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
 import jakarta.mail.Session;
 import jakarta.mail.Store;
-import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.UIDFolder;
 import jakarta.mail.search.FlagTerm;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Получение входящих писем по IMAP.
+ * <p>
+ * При {@code mail.imap.idle.enabled=true} сервис держит одно долгоживущее соединение с папкой
+ * в режиме IMAP IDLE: сервер сам сообщает о новых письмах, и они сразу передаются
+ * обработчикам {@link InboundMailHandler}. IDLE перезапускается командой NOOP раз в
+ * {@code mail.imap.idle.keepalive}, чтобы сервер и промежуточные узлы не закрыли соединение;
+ * при разрыве выполняется переподключение с экспоненциальной задержкой. Без IDLE папка
+ * проверяется раз в {@code mail.imap.sync.poll-ms}.
+ * <p>
+ * Обработка инкрементальная: UID последнего обработанного письма и UIDVALIDITY папки хранятся
+ * в {@link MailboxCursor}, поэтому после переподключения или перезапуска обрабатываются только
+ * новые письма. Письма загружаются пачками (сначала заголовки и структура), а содержимое
+ * читается потоком через {@link InboundMailParser} по одному письму. Синхронизации выполняются
+ * по одной, а позиция не сдвигается за письмо, обработчик которого завершился ошибкой:
+ * оно будет передано повторно при следующей синхронизации.
+ */
 @Service
 @Slf4j
 public class EmailReceiverService {
 
+    private static final long INITIAL_RECONNECT_DELAY_MILLIS = 1000;
+
     @Value("${spring.mail.username}")
     private String username;
 
@@ -34,78 +75,427 @@ public class EmailReceiverService {
     @Value("${mail.imap.port}")
     private String port;
 
+    @Value("${mail.imap.ssl.enable:true}")
+    private boolean sslEnabled;
+
+    @Value("${mail.imap.folder:INBOX}")
+    private String folderName;
+
+    @Value("${mail.imap.idle.enabled:false}")
+    private boolean idleEnabled;
+
+    @Value("${mail.imap.idle.keepalive:PT9M}")
+    private Duration keepalive;
+
+    @Value("${mail.imap.idle.reconnect-max-delay:PT5M}")
+    private Duration maxReconnectDelay;
+
+    @Value("${mail.imap.sync.batch-size:100}")
+    private int batchSize;
+
+    @Value("${mail.imap.sync.from-start:false}")
+    private boolean fromStart;
+
+    private final ObjectProvider<InboundMailHandler> handlers;
+    private final InboundMailParser parser;
+    private final MailboxCursorRepository cursorRepository;
+    private final Counter receivedCounter;
+    private final Counter failureCounter;
+    private final Counter reconnectCounter;
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private volatile boolean running;
+    private volatile Store watchedStore;
+    private volatile IMAPFolder watchedFolder;
+    private Thread idleThread;
+    private ScheduledExecutorService keepaliveExecutor;
+
+    public EmailReceiverService(ObjectProvider<InboundMailHandler> handlers,
+                                InboundMailParser parser,
+                                MailboxCursorRepository cursorRepository,
+                                MeterRegistry meterRegistry) {
+        this.handlers = handlers;
+        this.parser = parser;
+        this.cursorRepository = cursorRepository;
+        this.receivedCounter = Counter.builder("email.inbound.messages")
+                .description("Входящие письма, переданные обработчикам")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("email.inbound.failures")
+                .description("Входящие письма, которые не удалось прочитать или обработать")
+                .register(meterRegistry);
+        this.reconnectCounter = Counter.builder("email.imap.reconnects")
+                .description("Переподключения IMAP после разрыва соединения")
+                .register(meterRegistry);
+    }
+
     /**
-     * Получение всех непрочитанных писем из папки INBOX
+     * Запуск наблюдения за папкой в режиме IDLE
      */
-    public List<String> readUnreadEmails() {
-        List<String> messages = new ArrayList<>();
-        Properties properties = new Properties();
-        properties.put("mail.store.protocol", "imaps");
-        properties.put("mail.imaps.host", host);
-        properties.put("mail.imaps.port", port);
-        properties.put("mail.imaps.ssl.enable", "true");
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatching() {
+        if (!idleEnabled) {
+            return;
+        }
+        running = true;
+        idleThread = new Thread(this::watchLoop, "imap-idle");
+        idleThread.setDaemon(true);
+        idleThread.start();
+        keepaliveExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("imap-keepalive-"));
+        keepaliveExecutor.scheduleWithFixedDelay(this::keepalive,
+                keepalive.toMillis(), keepalive.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Наблюдение за папкой {} на {} запущено (IDLE, keepalive {})", folderName, host, keepalive);
+    }
+
+    @PreDestroy
+    public void stopWatching() {
+        running = false;
+        if (keepaliveExecutor != null) {
+            keepaliveExecutor.shutdownNow();
+        }
+        if (idleThread != null) {
+            idleThread.interrupt();
+        }
+        // Закрытие хранилища прерывает ожидание в IDLE
+        closeQuietly(watchedFolder, watchedStore);
+    }
+
+    /**
+     * Потоковая обработка непрочитанных писем из папки INBOX: письма читаются пачками
+     * и по одному передаются обработчику, после чего помечаются прочитанными
+     */
+    public int readUnreadEmails(InboundMailHandler handler) {
+        int processed = 0;
+        Store store = null;
+        Folder inbox = null;
 
         try {
-            Session session = Session.getInstance(properties);
-            Store store = session.getStore("imaps");
-            store.connect(host, username, password);
+            store = connect();
 
-            Folder inbox = store.getFolder("INBOX");
+            inbox = store.getFolder("INBOX");
             inbox.open(Folder.READ_WRITE);
 
             // Получаем только непрочитанные сообщения
             Message[] unreadMessages = inbox.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
             log.info("Найдено {} непрочитанных писем", unreadMessages.length);
 
-            for (Message message : unreadMessages) {
-                String content = getTextFromMessage(message);
-                String from = message.getFrom()[0].toString();
-                String subject = message.getSubject();
+            UIDFolder uidFolder = (UIDFolder) inbox;
+            List<InboundMailHandler> mailHandlers = List.of(handler);
+            for (int from = 0; from < unreadMessages.length; from += batchSize) {
+                Message[] batch = Arrays.copyOfRange(unreadMessages, from, Math.min(from + batchSize, unreadMessages.length));
+                fetchHeaders(inbox, batch);
+                for (Message message : batch) {
+                    if (!dispatch(message, uidFolder.getUID(message), mailHandlers)) {
+                        // Письмо остается непрочитанным и будет обработано при следующем запуске
+                        continue;
+                    }
 
-                messages.add("От: " + from + "\nТема: " + subject + "\n\n" + content);
-
-                // Помечаем сообщение как прочитанное
-                message.setFlag(Flags.Flag.SEEN, true);
+                    // Помечаем сообщение как прочитанное
+                    message.setFlag(Flags.Flag.SEEN, true);
+                    processed++;
+                }
+                releaseHeaders(batch);
             }
-
-            inbox.close(false);
-            store.close();
         } catch (Exception e) {
             log.error("Ошибка при получении писем: {}", e.getMessage());
+        } finally {
+            closeQuietly(inbox, store);
         }
 
-        return messages;
+        return processed;
     }
 
     /**
-     * Извлечение текста из разных форматов сообщений
+     * Периодическая проверка новых писем, когда IDLE отключен
      */
-    private String getTextFromMessage(Message message) throws MessagingException, IOException {
-        if (message.isMimeType("text/plain")) {
-            return message.getContent().toString();
-        } else if (message.isMimeType("multipart/*")) {
-            MimeMultipart mimeMultipart = (MimeMultipart) message.getContent();
-            return getTextFromMimeMultipart(mimeMultipart);
+    @Scheduled(fixedDelayString = "${mail.imap.sync.poll-ms:60000}", initialDelayString = "${mail.imap.sync.poll-ms:60000}")
+    public void pollNewMessages() {
+        if (idleEnabled) {
+            return;
+        }
+        try {
+            syncNewMessages();
+        } catch (MessagingException e) {
+            log.warn("Не удалось проверить новые письма в {}: {}", host, e.getMessage());
+        }
+    }
+
+    /**
+     * Однократная обработка писем, пришедших после сохраненной позиции папки
+     */
+    public int syncNewMessages() throws MessagingException {
+        if (handlers.orderedStream().findAny().isEmpty()) {
+            return 0;
+        }
+        Store store = null;
+        IMAPFolder folder = null;
+        try {
+            store = connect();
+            folder = (IMAPFolder) store.getFolder(folderName);
+            folder.open(Folder.READ_ONLY);
+            return sync(folder);
+        } finally {
+            closeQuietly(folder, store);
         }
-        return "";
     }
 
     /**
-     * Извлечение текста из MimeMultipart
+     * Цикл наблюдения: подключение, IDLE до разрыва, переподключение с растущей задержкой
      */
-    private String getTextFromMimeMultipart(MimeMultipart mimeMultipart) throws MessagingException, IOException {
-        StringBuilder result = new StringBuilder();
-        int count = mimeMultipart.getCount();
-        for (int i = 0; i < count; i++) {
-            BodyPart bodyPart = mimeMultipart.getBodyPart(i);
-            if (bodyPart.isMimeType("text/plain")) {
-                result.append(bodyPart.getContent());
-            } else if (bodyPart.isMimeType("text/html")) {
-                result.append(bodyPart.getContent());
-            } else if (bodyPart.getContent() instanceof MimeMultipart) {
-                result.append(getTextFromMimeMultipart((MimeMultipart) bodyPart.getContent()));
+    private void watchLoop() {
+        long delayMillis = INITIAL_RECONNECT_DELAY_MILLIS;
+        while (running) {
+            Store store = null;
+            IMAPFolder folder = null;
+            try {
+                store = connect();
+                folder = (IMAPFolder) store.getFolder(folderName);
+                // Только чтение: флаги писем не меняются, позиция хранится в mailbox_cursors
+                folder.open(Folder.READ_ONLY);
+                watchedStore = store;
+                watchedFolder = folder;
+                delayMillis = INITIAL_RECONNECT_DELAY_MILLIS;
+                log.info("Подключение к {} установлено, ожидание новых писем", host);
+
+                // Письма, пришедшие за время отключения
+                sync(folder);
+
+                boolean idleSupported = ((IMAPStore) store).hasCapability("IDLE");
+                if (!idleSupported) {
+                    log.warn("Сервер {} не поддерживает IDLE, используется периодическая проверка", host);
+                }
+                while (running && folder.isOpen()) {
+                    if (idleSupported) {
+                        // Возврат после любого ответа сервера: новое письмо, удаление или NOOP
+                        folder.idle(true);
+                    } else {
+                        Thread.sleep(keepalive.toMillis());
+                    }
+                    sync(folder);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (running) {
+                    reconnectCounter.increment();
+                    log.warn("Соединение IMAP с {} прервано: {}. Переподключение через {} мс",
+                            host, e.getMessage(), delayMillis);
+                }
+            } finally {
+                watchedFolder = null;
+                watchedStore = null;
+                closeQuietly(folder, store);
+            }
+
+            if (running) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                delayMillis = Math.min(delayMillis * 2, maxReconnectDelay.toMillis());
             }
         }
-        return result.toString();
+        log.info("Наблюдение за папкой {} остановлено", folderName);
+    }
+
+    /**
+     * Периодический NOOP: прерывает текущий IDLE, цикл наблюдения сразу запускает его снова
+     */
+    private void keepalive() {
+        IMAPFolder folder = watchedFolder;
+        if (folder == null) {
+            return;
+        }
+        try {
+            folder.doCommand(protocol -> {
+                protocol.simpleCommand("NOOP", null);
+                return null;
+            });
+        } catch (MessagingException e) {
+            log.debug("NOOP не выполнен: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Обработка писем с UID больше сохраненного пачками по {@code mail.imap.sync.batch-size}.
+     * Позиция сохраняется после каждой пачки, поэтому после перезапуска обработка продолжается
+     * с первого необработанного письма. Без обработчиков позиция не сдвигается. При ошибке
+     * обработчика синхронизация останавливается на этом письме.
+     */
+    private int sync(IMAPFolder folder) throws MessagingException {
+        List<InboundMailHandler> mailHandlers = handlers.orderedStream().toList();
+        if (mailHandlers.isEmpty()) {
+            return 0;
+        }
+        syncLock.lock();
+        try {
+            return sync(folder, mailHandlers);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private int sync(IMAPFolder folder, List<InboundMailHandler> mailHandlers) throws MessagingException {
+        MailboxCursor cursor = loadCursor(folder);
+        Message[] messages = folder.getMessagesByUID(cursor.getLastUid() + 1, UIDFolder.MAXUID);
+        int processed = 0;
+        boolean failed = false;
+
+        for (int from = 0; from < messages.length && !failed; from += batchSize) {
+            Message[] batch = Arrays.copyOfRange(messages, from, Math.min(from + batchSize, messages.length));
+            fetchHeaders(folder, batch);
+            long lastUid = cursor.getLastUid();
+            try {
+                for (Message message : batch) {
+                    long uid = folder.getUID(message);
+                    // Диапазон "n:*" всегда содержит последнее письмо, даже если его UID меньше n
+                    if (uid <= lastUid) {
+                        continue;
+                    }
+                    if (!dispatch(message, uid, mailHandlers)) {
+                        log.warn("Обработка папки {} остановлена на письме UID {}, повтор при следующей синхронизации",
+                                folderName, uid);
+                        failed = true;
+                        break;
+                    }
+                    lastUid = uid;
+                    processed++;
+                }
+            } finally {
+                if (lastUid != cursor.getLastUid()) {
+                    cursor.setLastUid(lastUid);
+                    cursor = cursorRepository.save(cursor);
+                }
+                releaseHeaders(batch);
+            }
+        }
+
+        if (processed > 0) {
+            log.info("Обработано {} новых писем из папки {}, последний UID {}", processed, folderName, cursor.getLastUid());
+        }
+        return processed;
+    }
+
+    /**
+     * Позиция папки; при первом запуске или смене UIDVALIDITY начинается с конца папки
+     * или, при {@code mail.imap.sync.from-start=true}, с первого письма
+     */
+    private MailboxCursor loadCursor(IMAPFolder folder) throws MessagingException {
+        String key = username + "/" + folderName;
+        long uidValidity = folder.getUIDValidity();
+        MailboxCursor cursor = cursorRepository.findById(key).orElse(null);
+        if (cursor != null && cursor.getUidValidity() == uidValidity) {
+            return cursor;
+        }
+        if (cursor != null) {
+            log.warn("UIDVALIDITY папки {} изменился ({} -> {}), позиция обработки сброшена",
+                    folderName, cursor.getUidValidity(), uidValidity);
+        }
+        int count = folder.getMessageCount();
+        long lastUid = fromStart || count == 0 ? 0 : folder.getUID(folder.getMessage(count));
+        return cursorRepository.save(MailboxCursor.builder()
+                .folder(key)
+                .uidValidity(uidValidity)
+                .lastUid(lastUid)
+                .build());
+    }
+
+    /**
+     * Разбор письма и передача обработчикам. Письмо, которое не удалось прочитать, пропускается,
+     * а разрыв соединения прерывает обработку до переподключения.
+     *
+     * @return {@code false}, если обработчик завершился ошибкой и письмо нужно передать повторно
+     */
+    private boolean dispatch(Message message, long uid, List<InboundMailHandler> mailHandlers) throws MessagingException {
+        Folder folder = message.getFolder();
+        long uidValidity = ((UIDFolder) folder).getUIDValidity();
+        InboundMail mail;
+        try {
+            mail = parser.parse(message, uid);
+            mail.setFolder(folder.getFullName());
+            mail.setUidValidity(uidValidity);
+        } catch (FolderClosedIOException e) {
+            throw new FolderClosedException(e.getFolder(), e.getMessage());
+        } catch (IOException e) {
+            failureCounter.increment();
+            log.error("Не удалось прочитать письмо UID {}: {}", uid, e.getMessage());
+            return true;
+        }
+        try {
+            for (InboundMailHandler handler : mailHandlers) {
+                handler.handle(mail);
+            }
+            receivedCounter.increment();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failureCounter.increment();
+            log.error("Ошибка при обработке входящего письма UID {}: {}", uid, e.getMessage(), e);
+            return false;
+        } finally {
+            parser.release(mail);
+        }
+    }
+
+    /**
+     * Загрузка одной командой только заголовков, структуры и UID пачки писем;
+     * содержимое частей читается потоком при разборе письма
+     */
+    private static void fetchHeaders(Folder folder, Message[] batch) throws MessagingException {
+        FetchProfile profile = new FetchProfile();
+        profile.add(FetchProfile.Item.ENVELOPE);
+        profile.add(FetchProfile.Item.CONTENT_INFO);
+        profile.add(FetchProfile.Item.SIZE);
+        profile.add(UIDFolder.FetchProfileItem.UID);
+        folder.fetch(batch, profile);
+    }
+
+    /**
+     * Освобождение заголовков обработанной пачки, которые папка иначе держит до закрытия
+     */
+    private static void releaseHeaders(Message[] batch) {
+        for (Message message : batch) {
+            if (message instanceof IMAPMessage imapMessage) {
+                imapMessage.invalidateHeaders();
+            }
+        }
+    }
+
+    private Store connect() throws MessagingException {
+        String protocol = sslEnabled ? "imaps" : "imap";
+        Properties properties = new Properties();
+        properties.put("mail.store.protocol", protocol);
+        // Реализация com.sun.mail нужна для IDLE и NOOP через IMAPFolder
+        properties.put("mail." + protocol + ".class",
+                sslEnabled ? IMAPSSLStore.class.getName() : IMAPStore.class.getName());
+        properties.put("mail." + protocol + ".host", host);
+        properties.put("mail." + protocol + ".port", port);
+        properties.put("mail." + protocol + ".ssl.enable", String.valueOf(sslEnabled));
+        properties.put("mail." + protocol + ".connectiontimeout", "10000");
+        // Таймаут чтения больше интервала keepalive, иначе он оборвет штатное ожидание в IDLE
+        properties.put("mail." + protocol + ".timeout", String.valueOf(keepalive.toMillis() * 2));
+
+        Session session = Session.getInstance(properties);
+        Store store = session.getStore(protocol);
+        store.connect(host, username, password);
+        return store;
+    }
+
+    private static void closeQuietly(Folder folder, Store store) {
+        try {
+            if (folder != null && folder.isOpen()) {
+                folder.close(false);
+            }
+        } catch (Exception e) {
+            log.debug("Ошибка при закрытии папки: {}", e.getMessage());
+        }
+        try {
+            if (store != null) {
+                store.close();
+            }
+        } catch (Exception e) {
+            log.debug("Ошибка при закрытии соединения IMAP: {}", e.getMessage());
+        }
     }
 }
@@ -0,0 +1,68 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.BookingEmailDetails;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Формирование HTML писем по шаблонам Thymeleaf.
+ * <p>
+ * Используется собственный движок с кешем разобранных шаблонов без срока жизни
+ * (независимо от {@code spring.thymeleaf.cache}, который devtools отключает) и компиляцией
+ * выражений SpEL; шаблоны разбираются один раз при старте. Рендеринг выполняется в вызывающем
+ * потоке: письма формируются фоновыми задачами (outbox, рассылки), и отдельный пул лишь добавлял
+ * передачу между потоками с блокирующим ожиданием. Длительность учитывает
+ * {@code email.send.duration{stage=render}} в {@link EmailService}.
+ */
+@Component
+@Slf4j
+public class EmailRenderer {
+
+    static final String EMAIL_TEMPLATE = "email-template";
+
+    private final TemplateEngine templateEngine = createTemplateEngine();
+
+    /**
+     * Разбор шаблона письма и фрагмента бронирования в кеш до первого письма
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Context context = new Context();
+        context.setVariable("name", "");
+        context.setVariable("intro", "");
+        context.setVariable("booking", BookingEmailDetails.builder().id(0L).tableNumber(0).build());
+        templateEngine.process(EMAIL_TEMPLATE, context);
+        log.info("Шаблоны писем загружены в кеш");
+    }
+
+    /**
+     * Формирование письма в текущем потоке
+     */
+    public String render(String template, Context context) {
+        return templateEngine.process(template, context);
+    }
+
+    private static TemplateEngine createTemplateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        resolver.setCacheTTLMs(null);
+
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        engine.setEnableSpringELCompiler(true);
+        return engine;
+    }
+}
@@ -1,6 +1,11 @@
 package de.restaurant_booking_app.service;
 
+import de.restaurant_booking_app.dto.BookingEmailDetails;
 import de.restaurant_booking_app.model.Booking;
+import de.restaurant_booking_app.model.NotificationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
@@ -8,52 +13,57 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
 public class EmailService {
 
     private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final SmtpTransportPool transportPool;
+    private final EmailRenderer emailRenderer;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private final Timer renderTimer;
+    private final Timer sendTimer;
+    private final Timer batchTimer;
+    private final Counter renderFailures;
+    private final Counter sendFailures;
 
     @Autowired
-    public EmailService(JavaMailSender mailSender, TemplateEngine templateEngine) {
+    public EmailService(JavaMailSender mailSender, SmtpTransportPool transportPool, EmailRenderer emailRenderer,
+                        MeterRegistry meterRegistry) {
         this.mailSender = mailSender;
-        this.templateEngine = templateEngine;
+        this.transportPool = transportPool;
+        this.emailRenderer = emailRenderer;
+        this.renderTimer = stageTimer(meterRegistry, "render");
+        this.sendTimer = stageTimer(meterRegistry, "send");
+        this.batchTimer = stageTimer(meterRegistry, "send_batch");
+        this.renderFailures = failureCounter(meterRegistry, "render");
+        this.sendFailures = failureCounter(meterRegistry, "send");
         log.info("EmailService инициализирован");
     }
 
     /**
-     * Форматирование данных бронирования для отображения в письме
+     * Контекст письма о бронировании: данные для фрагмента подготавливаются заранее,
+     * чтобы шаблон не обращался к сущности
      */
-    private String formatBookingDetails(Booking booking) {
-        StringBuilder details = new StringBuilder();
-        details.append("<p>Информация о вашем бронировании:</p>");
-        details.append("<ul>");
-        details.append("<li><strong>Номер бронирования:</strong> ").append(booking.getId()).append("</li>");
-        details.append("<li><strong>Столик:</strong> ").append(booking.getTable().getTableNumber()).append("</li>");
-        details.append("<li><strong>Дата и время начала:</strong> ").append(booking.getStartTime().format(formatter)).append("</li>");
-        details.append("<li><strong>Дата и время окончания:</strong> ").append(booking.getEndTime().format(formatter)).append("</li>");
-        details.append("<li><strong>Статус:</strong> ").append(getStatusText(booking.getStatus().toString())).append("</li>");
-        details.append("</ul>");
-        return details.toString();
-    }
-
-    /**
-     * Перевод статуса на русский
-     */
-    private String getStatusText(String status) {
-        return switch (status) {
-            case "CONFIRMED" -> "Подтверждено";
-            case "CANCELLED" -> "Отменено";
-            case "PENDING" -> "Ожидает подтверждения";
-            default -> status;
-        };
+    Context bookingContext(Booking booking, String intro) {
+        Context context = new Context();
+        context.setVariable("name", booking.getCustomerName());
+        context.setVariable("intro", intro);
+        context.setVariable("booking", BookingEmailDetails.builder()
+                .id(booking.getId())
+                .tableNumber(booking.getTable().getTableNumber())
+                .startTime(booking.getStartTime().format(formatter))
+                .endTime(booking.getEndTime().format(formatter))
+                .status(booking.getStatus().getDisplayName())
+                .build());
+        return context;
     }
 
     /**
@@ -61,11 +71,7 @@ public class EmailService {
      */
     public void sendBookingConfirmation(Booking booking) {
         try {
-            Context context = new Context();
-            context.setVariable("name", booking.getCustomerName());
-            context.setVariable("message", "Ваше бронирование успешно подтверждено.<br>" + formatBookingDetails(booking));
-
-            sendEmail(booking.getCustomerEmail(), "Подтверждение бронирования столика", context);
+            sendBookingNotification(NotificationType.BOOKING_CONFIRMATION, booking);
             log.info("Отправлено подтверждение бронирования на email: {}", booking.getCustomerEmail());
         } catch (Exception e) {
             log.error("Ошибка при отправке подтверждения бронирования: {}", e.getMessage(), e);
@@ -78,11 +84,7 @@ public class EmailService {
      */
     public void sendBookingCancellation(Booking booking) {
         try {
-            Context context = new Context();
-            context.setVariable("name", booking.getCustomerName());
-            context.setVariable("message", "Ваше бронирование было отменено.<br>" + formatBookingDetails(booking));
-
-            sendEmail(booking.getCustomerEmail(), "Отмена бронирования столика", context);
+            sendBookingNotification(NotificationType.BOOKING_CANCELLATION, booking);
             log.info("Отправлено уведомление об отмене бронирования на email: {}", booking.getCustomerEmail());
         } catch (Exception e) {
             log.error("Ошибка при отправке уведомления об отмене бронирования: {}", e.getMessage(), e);
@@ -95,11 +97,7 @@ public class EmailService {
      */
     public void sendBookingUpdate(Booking booking) {
         try {
-            Context context = new Context();
-            context.setVariable("name", booking.getCustomerName());
-            context.setVariable("message", "Ваше бронирование было изменено.<br>" + formatBookingDetails(booking));
-
-            sendEmail(booking.getCustomerEmail(), "Изменение бронирования столика", context);
+            sendBookingNotification(NotificationType.BOOKING_UPDATE, booking);
             log.info("Отправлено уведомление об изменении бронирования на email: {}", booking.getCustomerEmail());
         } catch (Exception e) {
             log.error("Ошибка при отправке уведомления об изменении бронирования: {}", e.getMessage(), e);
@@ -107,6 +105,27 @@ public class EmailService {
         }
     }
 
+    /**
+     * Отправка письма о событии бронирования. Ошибка пробрасывается, чтобы outbox мог повторить попытку.
+     */
+    public void sendBookingNotification(NotificationType type, Booking booking) throws MessagingException {
+        sendEmail(booking.getCustomerEmail(), subjectOf(type), bookingContext(booking, introOf(type)));
+    }
+
+    /**
+     * Формирование письма о событии бронирования для пакетной отправки
+     *
+     * @return письмо или {@code null}, если у клиента нет email
+     */
+    public MimeMessage buildBookingNotification(NotificationType type, Booking booking) throws MessagingException {
+        String to = booking.getCustomerEmail();
+        if (to == null || to.trim().isEmpty()) {
+            log.warn("У бронирования ID {} нет email-адреса, письмо не сформировано", booking.getId());
+            return null;
+        }
+        return buildEmail(to, subjectOf(type), bookingContext(booking, introOf(type)));
+    }
+
     /**
      * Общий метод для отправки писем
      */
@@ -116,21 +135,94 @@ public class EmailService {
             return;
         }
 
-        try {
-            String htmlContent = templateEngine.process("email-template", context);
-
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
+        MimeMessage message = buildEmail(to, subject, context);
 
-            mailSender.send(message);
+        long started = System.nanoTime();
+        try {
+            transportPool.send(message);
             log.debug("Отправлено письмо на email: {}", to);
-        } catch (MessagingException e) {
+        } catch (MessagingException | RuntimeException e) {
+            sendFailures.increment();
             log.error("Ошибка при отправке письма на {}: {}", to, e.getMessage());
             throw e;
+        } finally {
+            sendTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Пакетная отправка писем через одно SMTP-соединение
+     *
+     * @return результат отправки каждого письма в порядке пакета
+     */
+    public List<SmtpTransportPool.Delivery> sendBatch(List<MimeMessage> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        try {
+            List<SmtpTransportPool.Delivery> deliveries = transportPool.sendAll(messages);
+            long failed = deliveries.stream().filter(delivery -> !delivery.isSent()).count();
+            sendFailures.increment(failed);
+            log.info("Пакетная отправка писем: отправлено {}, с ошибкой {}", messages.size() - failed, failed);
+            return deliveries;
+        } finally {
+            batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Формирование письма по шаблону без отправки
+     */
+    public MimeMessage buildEmail(String to, String subject, Context context) throws MessagingException {
+        String htmlContent;
+        try {
+            htmlContent = renderTimer.record(() -> emailRenderer.render(EmailRenderer.EMAIL_TEMPLATE, context));
+        } catch (RuntimeException e) {
+            renderFailures.increment();
+            log.error("Ошибка при формировании письма для {}: {}", to, e.getMessage());
+            throw e;
         }
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(htmlContent, true);
+        return message;
+    }
+
+    private static String subjectOf(NotificationType type) {
+        return switch (type) {
+            case BOOKING_CONFIRMATION -> "Подтверждение бронирования столика";
+            case BOOKING_CANCELLATION -> "Отмена бронирования столика";
+            case BOOKING_UPDATE -> "Изменение бронирования столика";
+        };
+    }
+
+    private static String introOf(NotificationType type) {
+        return switch (type) {
+            case BOOKING_CONFIRMATION -> "Ваше бронирование успешно подтверждено.";
+            case BOOKING_CANCELLATION -> "Ваше бронирование было отменено.";
+            case BOOKING_UPDATE -> "Ваше бронирование было изменено.";
+        };
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("email.send.duration")
+                .description("Длительность формирования и отправки письма")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    private static Counter failureCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("email.send.failures")
+                .description("Количество ошибок формирования и отправки писем")
+                .tag("stage", stage)
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,437 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.BookingDto;
+import de.restaurant_booking_app.dto.BookingRequest;
+import de.restaurant_booking_app.dto.InboundMail;
+import de.restaurant_booking_app.exception.BookingConflictException;
+import de.restaurant_booking_app.model.Booking;
+import de.restaurant_booking_app.model.BookingReview;
+import de.restaurant_booking_app.model.BookingTable;
+import de.restaurant_booking_app.model.InboundBookingRequest;
+import de.restaurant_booking_app.model.InboundRequestStatus;
+import de.restaurant_booking_app.repository.BookingReviewRepository;
+import de.restaurant_booking_app.repository.InboundBookingRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Автоматическое бронирование по входящим письмам.
+ * <p>
+ * Письмо разбирается {@link BookingRequestParser} на пуле {@code booking.inbound.parse-threads}
+ * потоков; при заполнении очереди пула разбор выполняет поток получения почты, что притормаживает
+ * чтение ящика. Разобранные заявки собираются в пачки (до {@code booking.inbound.batch-size}
+ * заявок или {@code booking.inbound.batch-window}), и для каждого запрошенного времени начала
+ * выполняется один вызов {@link BookingService#findAvailableTables}. Заявка получает наименьший
+ * подходящий свободный столик; если распознать заявку или найти столик не удалось, она попадает
+ * в очередь ручной проверки {@link BookingReview}.
+ * <p>
+ * До возврата из {@link #handle} письмо сохраняется как {@link InboundBookingRequest} в статусе
+ * PENDING, поэтому курсор ящика не обгоняет принятые заявки: необработанные к остановке заявки
+ * возобновляются при запуске. Решение (бронирование или запись на проверку) фиксируется в одной
+ * транзакции со статусом заявки, а уникальный {@code mail_uid} исключает повторную обработку письма.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.inbound.enabled", havingValue = "true")
+@Slf4j
+public class InboundBookingPipeline implements InboundMailHandler {
+
+    // Заявке на бронирование хватает начала письма; длинные цитаты и подписи не читаются
+    static final int MAX_TEXT_CHARS = 16 * 1024;
+
+    private final BookingService bookingService;
+    private final BookingRequestParser parser;
+    private final BookingReviewRepository reviewRepository;
+    private final InboundBookingRequestRepository requestRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor parseExecutor;
+    private final BlockingQueue<Pending> parsedRequests;
+    private final Thread batchThread;
+    private final int batchSize;
+    private final long batchWindowNanos;
+    private final Duration bookingDuration;
+    private final Counter bookedCounter;
+    private final Counter reviewCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+    private final Timer latencyTimer;
+
+    private volatile boolean running = true;
+
+    public InboundBookingPipeline(BookingService bookingService,
+                                  BookingRequestParser parser,
+                                  BookingReviewRepository reviewRepository,
+                                  InboundBookingRequestRepository requestRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${booking.inbound.parse-threads:4}") int parseThreads,
+                                  @Value("${booking.inbound.queue-capacity:1000}") int queueCapacity,
+                                  @Value("${booking.inbound.batch-size:100}") int batchSize,
+                                  @Value("${booking.inbound.batch-window:PT0.2S}") Duration batchWindow,
+                                  @Value("${booking.inbound.duration:PT2H}") Duration bookingDuration) {
+        this.bookingService = bookingService;
+        this.parser = parser;
+        this.reviewRepository = reviewRepository;
+        this.requestRepository = requestRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.parseExecutor = new ThreadPoolExecutor(parseThreads, parseThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("booking-inbound-parse-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.parsedRequests = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.bookingDuration = bookingDuration;
+
+        this.bookedCounter = outcomeCounter(meterRegistry, "booked");
+        this.reviewCounter = outcomeCounter(meterRegistry, "review");
+        this.failedCounter = outcomeCounter(meterRegistry, "failed");
+        this.lagTimer = Timer.builder("booking.inbound.lag")
+                .description("Время от отправки письма до решения по заявке")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofDays(3))
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("booking.inbound.latency")
+                .description("Время от получения письма до решения по заявке")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(meterRegistry);
+        Gauge.builder("booking.inbound.pending", this, pipeline -> pipeline.parseExecutor.getQueue().size()
+                        + pipeline.parseExecutor.getActiveCount() + pipeline.parsedRequests.size())
+                .description("Заявки из писем, ожидающие разбора или бронирования")
+                .register(meterRegistry);
+
+        this.batchThread = new CustomizableThreadFactory("booking-inbound-batch-").newThread(this::batchLoop);
+        this.batchThread.setDaemon(true);
+        this.batchThread.start();
+    }
+
+    /**
+     * Сохранение письма как заявки и передача на разбор; текст читается сразу,
+     * пока временные файлы письма существуют
+     */
+    @Override
+    public void handle(InboundMail mail) throws IOException {
+        long receivedNanos = System.nanoTime();
+        InboundBookingRequest request;
+        try {
+            request = requestRepository.saveAndFlush(InboundBookingRequest.builder()
+                    .folder(mail.getFolder())
+                    .uidValidity(mail.getUidValidity())
+                    .mailUid(mail.getUid())
+                    .sender(truncate(mail.getFrom(), 320))
+                    .subject(truncate(mail.getSubject(), 1000))
+                    .sentAt(mail.getSentAt())
+                    .body(readLimited(mail))
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Письмо UID {} (папка {}, UIDVALIDITY {}) уже принято в обработку, повтор пропущен",
+                    mail.getUid(), mail.getFolder(), mail.getUidValidity());
+            return;
+        }
+        submit(request, receivedNanos);
+    }
+
+    /**
+     * Возобновление заявок, принятых до остановки, но еще не обработанных
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        List<InboundBookingRequest> pending = requestRepository.findByStatusOrderByIdAsc(InboundRequestStatus.PENDING);
+        for (InboundBookingRequest request : pending) {
+            submit(request, System.nanoTime());
+        }
+        if (!pending.isEmpty()) {
+            log.info("Возобновлена обработка {} заявок из писем", pending.size());
+        }
+    }
+
+    /**
+     * Удаление обработанных заявок старше недели
+     */
+    @Scheduled(cron = "0 40 3 * * *")
+    public void purgeDecided() {
+        int deleted = requestRepository.deleteDecidedBefore(LocalDateTime.now().minusWeeks(1));
+        log.info("Удалено {} обработанных заявок из писем", deleted);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        parseExecutor.shutdown();
+        parseExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        running = false;
+        batchThread.join(TimeUnit.SECONDS.toMillis(10));
+        if (!parsedRequests.isEmpty()) {
+            log.warn("Остановка с {} необработанными заявками из писем, они будут обработаны после запуска",
+                    parsedRequests.size());
+        }
+    }
+
+    private void submit(InboundBookingRequest request, long receivedNanos) {
+        InboundMail mail = InboundMail.builder()
+                .uid(request.getMailUid())
+                .folder(request.getFolder())
+                .uidValidity(request.getUidValidity())
+                .from(request.getSender())
+                .subject(request.getSubject())
+                .sentAt(request.getSentAt())
+                .text(request.getBody())
+                .build();
+        parseExecutor.execute(() -> parse(mail, request.getId(), receivedNanos));
+    }
+
+    private void parse(InboundMail mail, Long requestId, long receivedNanos) {
+        BookingRequest request;
+        try {
+            request = parser.parse(mail, LocalDate.now());
+        } catch (RuntimeException e) {
+            // Нераспознанное письмо уходит на проверку как заявка без полей
+            failedCounter.increment();
+            log.error("Ошибка при разборе письма UID {}: {}", mail.getUid(), e.getMessage(), e);
+            request = BookingRequest.builder()
+                    .mailUid(mail.getUid())
+                    .receivedAt(mail.getSentAt())
+                    .excerpt(truncate(mail.getText(), 1000))
+                    .build();
+        }
+        try {
+            parsedRequests.put(new Pending(request, requestId, receivedNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Сбор пачки: первая заявка ожидается без ограничения, остальные — не дольше окна пачки
+     */
+    private void batchLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !parsedRequests.isEmpty()) {
+            try {
+                Pending first = parsedRequests.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < batchSize) {
+                    parsedRequests.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = parsedRequests.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка при обработке пачки заявок из писем: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Бронирование пачки заявок: одна проверка доступности на каждое время начала
+     */
+    void processBatch(List<Pending> batch) {
+        Map<LocalDateTime, List<Pending>> byStart = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            String missing = missingFields(pending.request());
+            if (missing != null) {
+                review(pending, "Не удалось определить: " + missing);
+                continue;
+            }
+            byStart.computeIfAbsent(pending.request().getDate().atTime(pending.request().getTime()),
+                    start -> new ArrayList<>()).add(pending);
+        }
+
+        for (Map.Entry<LocalDateTime, List<Pending>> group : byStart.entrySet()) {
+            LocalDateTime start = group.getKey();
+            int minPartySize = group.getValue().stream().mapToInt(p -> p.request().getPartySize()).min().orElse(1);
+            List<BookingTable> available;
+            try {
+                available = new ArrayList<>(bookingService.findAvailableTables(minPartySize, start, start.plus(bookingDuration)));
+            } catch (RuntimeException e) {
+                // Время в прошлом или слишком долгое бронирование — InvalidBookingException
+                group.getValue().forEach(pending -> review(pending, e.getMessage()));
+                continue;
+            }
+            for (Pending pending : group.getValue()) {
+                book(pending, start, available);
+            }
+        }
+    }
+
+    /**
+     * Бронирование наименьшего подходящего столика; занятый другим процессом столик пропускается
+     */
+    private void book(Pending pending, LocalDateTime start, List<BookingTable> available) {
+        BookingRequest request = pending.request();
+        Iterator<BookingTable> tables = available.iterator();
+        while (tables.hasNext()) {
+            BookingTable table = tables.next();
+            if (table.getCapacity() < request.getPartySize()) {
+                continue;
+            }
+            tables.remove();
+            try {
+                // Бронирование и статус заявки фиксируются вместе: после сбоя заявка не забронируется дважды
+                Booking booking = transactionTemplate.execute(status -> {
+                    Booking created = bookingService.createBooking(BookingDto.builder()
+                            .tableId(table.getId())
+                            .startTime(start)
+                            .endTime(start.plus(bookingDuration))
+                            .customerName(truncate(request.getCustomerName(), 100))
+                            .customerEmail(request.getCustomerEmail())
+                            .customerPhone(request.getCustomerPhone())
+                            .build());
+                    markDecided(pending, InboundRequestStatus.BOOKED, created.getId());
+                    return created;
+                });
+                bookedCounter.increment();
+                recordLag(pending);
+                log.info("Письмо UID {}: создано бронирование {} на столик #{}",
+                        request.getMailUid(), booking.getId(), table.getTableNumber());
+                return;
+            } catch (BookingConflictException e) {
+                log.debug("Письмо UID {}: столик #{} уже занят", request.getMailUid(), table.getTableNumber());
+            } catch (RuntimeException e) {
+                review(pending, "Ошибка при создании бронирования: " + e.getMessage());
+                return;
+            }
+        }
+        review(pending, "Нет свободного столика на " + request.getPartySize() + " человек");
+    }
+
+    private void review(Pending pending, String reason) {
+        BookingRequest request = pending.request();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                reviewRepository.save(BookingReview.builder()
+                        .mailUid(request.getMailUid())
+                        .customerName(truncate(request.getCustomerName(), 100))
+                        .customerEmail(request.getCustomerEmail())
+                        .customerPhone(request.getCustomerPhone())
+                        .requestedStart(request.getDate() != null && request.getTime() != null
+                                ? request.getDate().atTime(request.getTime()) : null)
+                        .partySize(request.getPartySize())
+                        .reason(truncate(reason, 500))
+                        .excerpt(request.getExcerpt())
+                        .build());
+                markDecided(pending, InboundRequestStatus.REVIEW, null);
+            });
+            reviewCounter.increment();
+            log.info("Письмо UID {} передано на ручную проверку: {}", request.getMailUid(), reason);
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            log.error("Не удалось сохранить заявку из письма UID {} для проверки: {}",
+                    request.getMailUid(), e.getMessage(), e);
+        }
+        recordLag(pending);
+    }
+
+    private void markDecided(Pending pending, InboundRequestStatus status, Long bookingId) {
+        if (requestRepository.markDecided(pending.requestId(), status, bookingId, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Заявка из письма UID " + pending.request().getMailUid() + " уже обработана");
+        }
+    }
+
+    private void recordLag(Pending pending) {
+        latencyTimer.record(System.nanoTime() - pending.receivedNanos(), TimeUnit.NANOSECONDS);
+        LocalDateTime receivedAt = pending.request().getReceivedAt();
+        if (receivedAt != null) {
+            Duration lag = Duration.between(receivedAt, LocalDateTime.now());
+            if (!lag.isNegative()) {
+                lagTimer.record(lag);
+            }
+        }
+    }
+
+    private static String missingFields(BookingRequest request) {
+        List<String> missing = new ArrayList<>();
+        if (request.getDate() == null) {
+            missing.add("дата");
+        }
+        if (request.getTime() == null) {
+            missing.add("время");
+        }
+        if (request.getPartySize() == null) {
+            missing.add("количество гостей");
+        }
+        if (request.getCustomerEmail() == null) {
+            missing.add("email");
+        }
+        return missing.isEmpty() ? null : String.join(", ", missing);
+    }
+
+    private static String readLimited(InboundMail mail) throws IOException {
+        if (mail.getTextFile() == null) {
+            return truncate(mail.getText(), MAX_TEXT_CHARS);
+        }
+        char[] buffer = new char[MAX_TEXT_CHARS];
+        int length = 0;
+        try (BufferedReader reader = Files.newBufferedReader(mail.getTextFile(), StandardCharsets.UTF_8)) {
+            int read;
+            while (length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+            }
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("booking.inbound.requests")
+                .description("Заявки на бронирование из входящих писем")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Разобранная заявка, ее запись в БД и момент получения письма для метрики задержки
+     */
+    record Pending(BookingRequest request, Long requestId, long receivedNanos) {
+    }
+}
@@ -0,0 +1,15 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.InboundMail;
+
+import java.io.IOException;
+
+/**
+ * Обработчик входящих писем, которые по одному передает {@link EmailReceiverService}.
+ * Временные файлы письма доступны только во время вызова и удаляются сразу после него.
+ */
+@FunctionalInterface
+public interface InboundMailHandler {
+
+    void handle(InboundMail mail) throws IOException;
+}
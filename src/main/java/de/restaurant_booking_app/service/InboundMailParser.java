@@ -0,0 +1,233 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.InboundMail;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.ContentType;
+import jakarta.mail.internet.ParseException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор входящего письма в {@link InboundMail} без загрузки письма целиком в память.
+ * <p>
+ * Части письма читаются потоком. Текст копится в памяти до {@code mail.inbound.memory-threshold},
+ * после чего дописывается во временный файл; вложения всегда сохраняются на диск.
+ * Текстом письма считаются все части text/plain, а при их отсутствии — первая часть text/html.
+ */
+@Component
+@Slf4j
+public class InboundMailParser {
+
+    private final Path spoolDir;
+    private final int memoryThreshold;
+
+    public InboundMailParser(@Value("${mail.inbound.spool-dir:${java.io.tmpdir}/restaurant-booking-mail}") Path spoolDir,
+                             @Value("${mail.inbound.memory-threshold:256KB}") DataSize memoryThreshold) {
+        this.spoolDir = spoolDir;
+        this.memoryThreshold = (int) Math.min(memoryThreshold.toBytes(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Разбор письма; при ошибке уже созданные временные файлы удаляются
+     */
+    public InboundMail parse(Message message, long uid) throws MessagingException, IOException {
+        Address[] from = message.getFrom();
+        InboundMail mail = InboundMail.builder()
+                .uid(uid)
+                .from(from != null && from.length > 0 ? from[0].toString() : null)
+                .subject(message.getSubject())
+                .sentAt(message.getSentDate() != null
+                        ? LocalDateTime.ofInstant(message.getSentDate().toInstant(), ZoneId.systemDefault())
+                        : null)
+                .build();
+        try {
+            List<Part> plainParts = new ArrayList<>();
+            List<Part> htmlParts = new ArrayList<>();
+            List<Part> attachmentParts = new ArrayList<>();
+            collectParts(message, plainParts, htmlParts, attachmentParts);
+
+            List<Part> textParts = !plainParts.isEmpty() ? plainParts : htmlParts.stream().limit(1).toList();
+            readText(textParts, mail);
+            for (Part part : attachmentParts) {
+                mail.getAttachments().add(saveAttachment(part));
+            }
+            return mail;
+        } catch (MessagingException | IOException | RuntimeException e) {
+            release(mail);
+            throw e;
+        }
+    }
+
+    /**
+     * Удаление временных файлов письма после обработки
+     */
+    public void release(InboundMail mail) {
+        deleteQuietly(mail.getTextFile());
+        for (InboundMail.Attachment attachment : mail.getAttachments()) {
+            deleteQuietly(attachment.getFile());
+        }
+    }
+
+    /**
+     * Обход структуры письма; содержимое частей на этом шаге не загружается
+     */
+    private void collectParts(Part part, List<Part> plainParts, List<Part> htmlParts, List<Part> attachmentParts)
+            throws MessagingException, IOException {
+        if (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                collectParts(multipart.getBodyPart(i), plainParts, htmlParts, attachmentParts);
+            }
+        } else if (Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition()) || part.getFileName() != null) {
+            attachmentParts.add(part);
+        } else if (part.isMimeType("text/plain")) {
+            plainParts.add(part);
+        } else if (part.isMimeType("text/html")) {
+            htmlParts.add(part);
+        } else {
+            attachmentParts.add(part);
+        }
+    }
+
+    private void readText(List<Part> parts, InboundMail mail) throws MessagingException, IOException {
+        if (parts.isEmpty()) {
+            return;
+        }
+        SpillingOutputStream output = new SpillingOutputStream();
+        try (Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+            for (Part part : parts) {
+                try (Reader reader = new InputStreamReader(part.getInputStream(), charsetOf(part))) {
+                    reader.transferTo(writer);
+                }
+            }
+        } finally {
+            mail.setTextFile(output.file);
+        }
+        if (output.file == null) {
+            mail.setText(output.memory.toString(StandardCharsets.UTF_8));
+        } else {
+            log.debug("Текст письма UID {} сохранен во временный файл {}", mail.getUid(), output.file);
+        }
+    }
+
+    private InboundMail.Attachment saveAttachment(Part part) throws MessagingException, IOException {
+        Path file = createSpoolFile("attachment-");
+        try (InputStream input = part.getInputStream()) {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (MessagingException | IOException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+        return InboundMail.Attachment.builder()
+                .fileName(part.getFileName())
+                .contentType(baseType(part))
+                .size(Files.size(file))
+                .file(file)
+                .build();
+    }
+
+    private Path createSpoolFile(String prefix) throws IOException {
+        Files.createDirectories(spoolDir);
+        return Files.createTempFile(spoolDir, prefix, ".part");
+    }
+
+    private static Charset charsetOf(Part part) throws MessagingException {
+        try {
+            String charset = new ContentType(part.getContentType()).getParameter("charset");
+            if (charset != null && Charset.isSupported(charset)) {
+                return Charset.forName(charset);
+            }
+        } catch (ParseException | IllegalArgumentException e) {
+            log.debug("Некорректный Content-Type части письма: {}", part.getContentType());
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static String baseType(Part part) throws MessagingException {
+        try {
+            return new ContentType(part.getContentType()).getBaseType();
+        } catch (ParseException e) {
+            return "application/octet-stream";
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Поток, который держит данные в памяти до порога и затем переключается на временный файл
+     */
+    private class SpillingOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private OutputStream fileOutput;
+        private Path file;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (fileOutput == null && memory.size() + length > memoryThreshold) {
+                file = createSpoolFile("text-");
+                fileOutput = new BufferedOutputStream(Files.newOutputStream(file));
+                memory.writeTo(fileOutput);
+                memory.reset();
+            }
+            if (fileOutput != null) {
+                fileOutput.write(bytes, offset, length);
+            } else {
+                memory.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (fileOutput != null) {
+                fileOutput.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fileOutput != null) {
+                fileOutput.close();
+            }
+        }
+    }
+}
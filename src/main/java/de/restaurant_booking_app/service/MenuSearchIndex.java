@@ -0,0 +1,259 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.MenuItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс для поиска по меню в памяти.
+ * <p>
+ * Название и описание разбиваются на слова, которые приводятся к нижнему регистру,
+ * «ё» заменяется на «е», а от слов отрезаются типичные окончания русского языка.
+ * Основы слов хранятся в отсортированном словаре (поиск по префиксу), а их триграммы —
+ * в отдельном индексе для нечеткого поиска с опечатками. Совпадения в названии весят
+ * больше, чем в описании. Индекс обновляется поэлементно при изменении меню.
+ */
+public class MenuSearchIndex {
+
+    static final int NAME_WEIGHT = 3;
+    static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.7;
+    private static final double FUZZY_FACTOR = 0.5;
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final int MIN_STEM_LENGTH = 3;
+    private static final String[] ENDINGS = {
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ией",
+            "ой", "ей", "ий", "ый", "ая", "яя", "ое", "ее", "ые", "ие", "ов", "ев",
+            "ам", "ям", "ах", "ях", "ом", "ем", "ую", "юю", "ия", "ью",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"
+    };
+
+    // основа -> (id блюда -> вес)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // триграмма -> основы, в которых она встречается
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    // id блюда -> его основы (для удаления)
+    private final Map<Long, Set<String>> itemTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Полное перестроение индекса
+     */
+    public void rebuild(Collection<MenuItem> items) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            trigrams.clear();
+            itemTerms.clear();
+            items.forEach(this::addUnlocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавление или замена блюда в индексе
+     */
+    public void put(MenuItem item) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(item.getId());
+            addUnlocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаление блюда из индекса
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск блюд: id в порядке убывания релевантности.
+     * Каждое слово запроса ищется точно, по префиксу и нечетко; баллы по словам суммируются.
+     * Пустой запрос возвращает все блюда индекса по возрастанию id.
+     */
+    public List<Long> search(String query) {
+        if (query == null || query.isBlank()) {
+            lock.readLock().lock();
+            try {
+                List<Long> all = new ArrayList<>(itemTerms.keySet());
+                Collections.sort(all);
+                return all;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String word : words) {
+                Map<Long, Double> wordScores = new HashMap<>();
+                String stem = stem(word);
+                collect(wordScores, postings.get(stem), 1.0);
+                for (Map.Entry<String, Map<Long, Integer>> entry : prefixMatches(word).entrySet()) {
+                    if (!entry.getKey().equals(stem)) {
+                        collect(wordScores, entry.getValue(), PREFIX_FACTOR);
+                    }
+                }
+                if (wordScores.isEmpty()) {
+                    for (Map.Entry<String, Double> candidate : similarTerms(stem).entrySet()) {
+                        collect(wordScores, postings.get(candidate.getKey()), FUZZY_FACTOR * candidate.getValue());
+                    }
+                }
+                wordScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> result = new ArrayList<>(scores.keySet());
+        result.sort((a, b) -> {
+            int byScore = Double.compare(scores.get(b), scores.get(a));
+            return byScore != 0 ? byScore : Long.compare(a, b);
+        });
+        return result;
+    }
+
+    /**
+     * Нормализация и разбиение текста на слова
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Упрощенный стемминг: отрезание самого длинного подходящего окончания
+     */
+    static String stem(String word) {
+        for (String ending : ENDINGS) {
+            if (word.length() - ending.length() >= MIN_STEM_LENGTH && word.endsWith(ending)) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private void addUnlocked(MenuItem item) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String word : tokenize(item.getName())) {
+            weights.merge(stem(word), NAME_WEIGHT, Math::max);
+        }
+        for (String word : tokenize(item.getDescription())) {
+            weights.merge(stem(word), DESCRIPTION_WEIGHT, Math::max);
+        }
+        weights.forEach((term, weight) -> {
+            Map<Long, Integer> items = postings.computeIfAbsent(term, k -> {
+                for (String trigram : trigramsOf(k)) {
+                    trigrams.computeIfAbsent(trigram, t -> new HashSet<>()).add(k);
+                }
+                return new HashMap<>();
+            });
+            items.put(item.getId(), weight);
+        });
+        itemTerms.put(item.getId(), weights.keySet());
+    }
+
+    private void removeUnlocked(Long id) {
+        Set<String> terms = itemTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> items = postings.get(term);
+            if (items == null) {
+                continue;
+            }
+            items.remove(id);
+            if (items.isEmpty()) {
+                postings.remove(term);
+                for (String trigram : trigramsOf(term)) {
+                    Set<String> owners = trigrams.get(trigram);
+                    if (owners != null && owners.remove(term) && owners.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private NavigableMap<String, Map<Long, Integer>> prefixMatches(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Основы, похожие на заданную (коэффициент Дайса по триграммам не ниже порога)
+     */
+    private Map<String, Double> similarTerms(String term) {
+        Set<String> queryTrigrams = trigramsOf(term);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            for (String candidate : trigrams.getOrDefault(trigram, Collections.emptySet())) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+        Map<String, Double> result = new HashMap<>();
+        shared.forEach((candidate, count) -> {
+            double similarity = 2.0 * count / (queryTrigrams.size() + trigramsOf(candidate).size());
+            if (similarity >= MIN_SIMILARITY) {
+                result.put(candidate, similarity);
+            }
+        });
+        return result;
+    }
+
+    private static void collect(Map<Long, Double> scores, Map<Long, Integer> items, double factor) {
+        if (items == null) {
+            return;
+        }
+        items.forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+    }
+
+    private static Set<String> trigramsOf(String term) {
+        String padded = "$" + term + "$";
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+}
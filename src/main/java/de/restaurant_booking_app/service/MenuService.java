@@ -1,16 +1,21 @@
 package de.restaurant_booking_app.service;
 
+import de.restaurant_booking_app.dto.MenuFilter;
 import de.restaurant_booking_app.exception.ResourceNotFoundException;
 import de.restaurant_booking_app.model.MenuItem;
 import de.restaurant_booking_app.model.MenuItemCategory;
+import de.restaurant_booking_app.model.PopularityWindow;
 import de.restaurant_booking_app.repository.MenuItemRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,10 +23,25 @@ import java.util.stream.Collectors;
 public class MenuService {
 
     private final MenuItemRepository menuItemRepository;
+    private final PopularItemsTracker popularItemsTracker;
+    private final MenuSearchIndex searchIndex = new MenuSearchIndex();
+
+    // Текущий снимок меню; null — снимок еще не загружен
+    private volatile MenuSnapshot snapshot;
+    private long snapshotVersion;
 
     @Autowired
-    public MenuService(MenuItemRepository menuItemRepository) {
+    public MenuService(MenuItemRepository menuItemRepository, PopularItemsTracker popularItemsTracker) {
         this.menuItemRepository = menuItemRepository;
+        this.popularItemsTracker = popularItemsTracker;
+    }
+
+    /**
+     * Текущий неизменяемый снимок меню (загружается из БД при первом обращении)
+     */
+    public MenuSnapshot getSnapshot() {
+        MenuSnapshot current = snapshot;
+        return current != null ? current : refreshSnapshot();
     }
 
     /**
@@ -29,7 +49,7 @@ public class MenuService {
      */
     public List<MenuItem> getAllMenuItems() {
         log.debug("Запрос на получение всех пунктов меню");
-        return menuItemRepository.findAll();
+        return getSnapshot().all();
     }
 
     /**
@@ -37,7 +57,7 @@ public class MenuService {
      */
     public List<MenuItem> getAvailableMenuItems() {
         log.debug("Запрос на получение доступных пунктов меню");
-        return menuItemRepository.findByAvailableTrue();
+        return getSnapshot().available();
     }
 
     /**
@@ -45,11 +65,12 @@ public class MenuService {
      */
     public MenuItem getMenuItemById(Long id) {
         log.debug("Запрос на получение пункта меню с ID: {}", id);
-        return menuItemRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.error("Пункт меню с ID {} не найден", id);
-                    return new ResourceNotFoundException("Пункт меню с ID " + id + " не найден");
-                });
+        MenuItem menuItem = getSnapshot().byId(id);
+        if (menuItem == null) {
+            log.error("Пункт меню с ID {} не найден", id);
+            throw new ResourceNotFoundException("Пункт меню с ID " + id + " не найден");
+        }
+        return menuItem;
     }
 
     /**
@@ -57,7 +78,7 @@ public class MenuService {
      */
     public List<MenuItem> getMenuItemsByCategory(MenuItemCategory category) {
         log.debug("Запрос на получение пунктов меню категории: {}", category);
-        return menuItemRepository.findByCategory(category);
+        return getSnapshot().byCategory(category, false);
     }
 
     /**
@@ -65,7 +86,7 @@ public class MenuService {
      */
     public List<MenuItem> getAvailableMenuItemsByCategory(MenuItemCategory category) {
         log.debug("Запрос на получение доступных пунктов меню категории: {}", category);
-        return menuItemRepository.findByCategoryAndAvailableTrue(category);
+        return getSnapshot().byCategory(category, true);
     }
 
     /**
@@ -73,10 +94,7 @@ public class MenuService {
      */
     public Map<MenuItemCategory, List<MenuItem>> getMenuByCategories() {
         log.debug("Запрос на получение меню, сгруппированного по категориям");
-        List<MenuItem> availableItems = menuItemRepository.findByAvailableTrue();
-
-        return availableItems.stream()
-                .collect(Collectors.groupingBy(MenuItem::getCategory));
+        return getSnapshot().availableByCategory();
     }
 
     /**
@@ -84,7 +102,7 @@ public class MenuService {
      */
     public List<MenuItem> getVegetarianItems() {
         log.debug("Запрос на получение вегетарианских блюд");
-        return menuItemRepository.findByIsVegetarianTrue();
+        return getSnapshot().vegetarian();
     }
 
     /**
@@ -92,7 +110,7 @@ public class MenuService {
      */
     public List<MenuItem> getVeganItems() {
         log.debug("Запрос на получение веганских блюд");
-        return menuItemRepository.findByIsVeganTrue();
+        return getSnapshot().vegan();
     }
 
     /**
@@ -100,15 +118,27 @@ public class MenuService {
      */
     public List<MenuItem> getGlutenFreeItems() {
         log.debug("Запрос на получение безглютеновых блюд");
-        return menuItemRepository.findByIsGlutenFreeTrue();
+        return getSnapshot().glutenFree();
+    }
+
+    /**
+     * Комбинированный фильтр по доступности, диетическим признакам и категориям
+     */
+    public List<MenuItem> filterMenuItems(MenuFilter filter) {
+        log.debug("Фильтрация меню: {}", filter);
+        return getSnapshot().filter(filter);
     }
 
     /**
-     * Поиск блюд
+     * Поиск блюд по индексу (с учетом префиксов и опечаток), по убыванию релевантности
      */
     public List<MenuItem> searchMenuItems(String query) {
         log.debug("Поиск блюд по запросу: {}", query);
-        return menuItemRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query, query);
+        MenuSnapshot current = getSnapshot();
+        return searchIndex.search(query).stream()
+                .map(current::byId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -117,7 +147,9 @@ public class MenuService {
     @Transactional
     public MenuItem createMenuItem(MenuItem menuItem) {
         log.debug("Создание нового пункта меню: {}", menuItem.getName());
-        return menuItemRepository.save(menuItem);
+        MenuItem savedMenuItem = menuItemRepository.save(menuItem);
+        afterCommit(() -> applyPut(savedMenuItem));
+        return savedMenuItem;
     }
 
     /**
@@ -127,7 +159,7 @@ public class MenuService {
     public MenuItem updateMenuItem(Long id, MenuItem menuItemDetails) {
         log.debug("Обновление пункта меню с ID: {}", id);
 
-        MenuItem menuItem = getMenuItemById(id);
+        MenuItem menuItem = findManagedMenuItem(id);
 
         menuItem.setName(menuItemDetails.getName());
         menuItem.setDescription(menuItemDetails.getDescription());
@@ -139,7 +171,9 @@ public class MenuService {
         menuItem.setVegan(menuItemDetails.isVegan());
         menuItem.setGlutenFree(menuItemDetails.isGlutenFree());
 
-        return menuItemRepository.save(menuItem);
+        MenuItem savedMenuItem = menuItemRepository.save(menuItem);
+        afterCommit(() -> applyPut(savedMenuItem));
+        return savedMenuItem;
     }
 
     /**
@@ -149,10 +183,12 @@ public class MenuService {
     public MenuItem toggleMenuItemAvailability(Long id) {
         log.debug("Изменение доступности пункта меню с ID: {}", id);
 
-        MenuItem menuItem = getMenuItemById(id);
+        MenuItem menuItem = findManagedMenuItem(id);
         menuItem.setAvailable(!menuItem.isAvailable());
 
-        return menuItemRepository.save(menuItem);
+        MenuItem savedMenuItem = menuItemRepository.save(menuItem);
+        afterCommit(() -> applyPut(savedMenuItem));
+        return savedMenuItem;
     }
 
     /**
@@ -162,17 +198,76 @@ public class MenuService {
     public void deleteMenuItem(Long id) {
         log.debug("Удаление пункта меню с ID: {}", id);
 
-        MenuItem menuItem = getMenuItemById(id);
+        MenuItem menuItem = findManagedMenuItem(id);
         menuItemRepository.delete(menuItem);
+        afterCommit(() -> applyRemove(id));
 
         log.info("Пункт меню с ID {} удален", id);
     }
 
     /**
-     * Получение популярных блюд
+     * Получение популярных блюд за период (из статистики заказов в памяти)
+     */
+    public List<MenuItem> getPopularItems(PopularityWindow window, int limit) {
+        log.debug("Запрос на получение топ-{} популярных блюд за период {}", limit, window);
+        MenuSnapshot current = getSnapshot();
+        return popularItemsTracker.top(window, limit).stream()
+                .map(current::byId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private MenuItem findManagedMenuItem(Long id) {
+        return menuItemRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Пункт меню с ID {} не найден", id);
+                    return new ResourceNotFoundException("Пункт меню с ID " + id + " не найден");
+                });
+    }
+
+    /**
+     * Перечитывание меню из БД, атомарная замена снимка и перестроение поискового индекса
      */
-    public List<MenuItem> getPopularItems(int limit) {
-        log.debug("Запрос на получение топ-{} популярных блюд", limit);
-        return menuItemRepository.findPopularItems(limit);
+    private synchronized MenuSnapshot refreshSnapshot() {
+        MenuSnapshot refreshed = new MenuSnapshot(++snapshotVersion, menuItemRepository.findAll());
+        searchIndex.rebuild(refreshed.all());
+        snapshot = refreshed;
+        log.debug("Снимок меню обновлен: версия {}, {} пунктов", refreshed.getVersion(), refreshed.size());
+        return refreshed;
+    }
+
+    /**
+     * Замена одного пункта в снимке и индексе без перечитывания всего меню
+     */
+    private synchronized void applyPut(MenuItem menuItem) {
+        if (snapshot == null) {
+            refreshSnapshot();
+            return;
+        }
+        MenuSnapshot updated = snapshot.with(++snapshotVersion, menuItem);
+        searchIndex.put(updated.byId(menuItem.getId()));
+        snapshot = updated;
+    }
+
+    private synchronized void applyRemove(Long id) {
+        if (snapshot == null) {
+            refreshSnapshot();
+            return;
+        }
+        searchIndex.remove(id);
+        snapshot = snapshot.without(++snapshotVersion, id);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
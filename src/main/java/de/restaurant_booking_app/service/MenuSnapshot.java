@@ -0,0 +1,227 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.MenuFilter;
+import de.restaurant_booking_app.model.MenuItem;
+import de.restaurant_booking_app.model.MenuItemCategory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Неизменяемый снимок меню с заранее построенными представлениями.
+ * <p>
+ * Группировка по категориям, доступные блюда и диетические подборки вычисляются один раз
+ * при построении снимка; после любого изменения меню снимок целиком заменяется новым.
+ * Для комбинированных фильтров по каждому признаку и категории хранится битовая маска
+ * позиций в списке {@link #all()}, так что любой фильтр сводится к нескольким операциям над long.
+ * Наружу отдаются копии блюд, поэтому изменение результата не меняет снимок, общий для всех потоков.
+ */
+public final class MenuSnapshot {
+
+    private final long version;
+    private final List<MenuItem> all;
+    private final List<MenuItem> available;
+    private final Map<Long, MenuItem> byId;
+    private final Map<MenuItemCategory, List<MenuItem>> byCategory;
+    private final Map<MenuItemCategory, List<MenuItem>> availableByCategory;
+    private final List<MenuItem> vegetarian;
+    private final List<MenuItem> vegan;
+    private final List<MenuItem> glutenFree;
+    private final long[] allBits;
+    private final long[] availableBits;
+    private final long[] vegetarianBits;
+    private final long[] veganBits;
+    private final long[] glutenFreeBits;
+    private final long[][] categoryBits;
+
+    MenuSnapshot(long version, List<MenuItem> items) {
+        this.version = version;
+        this.all = items.stream()
+                .map(MenuSnapshot::copyOf)
+                .sorted(Comparator.comparing(MenuItem::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        this.available = filter(MenuItem::isAvailable);
+        Map<Long, MenuItem> index = new HashMap<>();
+        all.forEach(item -> index.put(item.getId(), item));
+        this.byId = Collections.unmodifiableMap(index);
+        this.byCategory = groupByCategory(all);
+        this.availableByCategory = groupByCategory(available);
+        this.vegetarian = filter(MenuItem::isVegetarian);
+        this.vegan = filter(MenuItem::isVegan);
+        this.glutenFree = filter(MenuItem::isGlutenFree);
+        this.allBits = bits(item -> true);
+        this.availableBits = bits(MenuItem::isAvailable);
+        this.vegetarianBits = bits(MenuItem::isVegetarian);
+        this.veganBits = bits(MenuItem::isVegan);
+        this.glutenFreeBits = bits(MenuItem::isGlutenFree);
+        this.categoryBits = new long[MenuItemCategory.values().length][];
+        for (MenuItemCategory category : MenuItemCategory.values()) {
+            categoryBits[category.ordinal()] = bits(item -> item.getCategory() == category);
+        }
+    }
+
+    /**
+     * Новый снимок, в котором пункт меню добавлен или заменен
+     */
+    MenuSnapshot with(long newVersion, MenuItem item) {
+        List<MenuItem> items = new ArrayList<>(all.size() + 1);
+        all.stream().filter(existing -> !Objects.equals(existing.getId(), item.getId())).forEach(items::add);
+        items.add(item);
+        return new MenuSnapshot(newVersion, items);
+    }
+
+    /**
+     * Новый снимок без указанного пункта меню
+     */
+    MenuSnapshot without(long newVersion, Long id) {
+        List<MenuItem> items = all.stream()
+                .filter(existing -> !Objects.equals(existing.getId(), id))
+                .collect(Collectors.toList());
+        return new MenuSnapshot(newVersion, items);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<MenuItem> all() {
+        return copiesOf(all);
+    }
+
+    public List<MenuItem> available() {
+        return copiesOf(available);
+    }
+
+    public MenuItem byId(Long id) {
+        MenuItem item = byId.get(id);
+        return item != null ? copyOf(item) : null;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * Блюда категории (пустой список, если в категории ничего нет)
+     */
+    public List<MenuItem> byCategory(MenuItemCategory category, boolean availableOnly) {
+        Map<MenuItemCategory, List<MenuItem>> source = availableOnly ? availableByCategory : byCategory;
+        return copiesOf(source.getOrDefault(category, Collections.emptyList()));
+    }
+
+    /**
+     * Доступные блюда, сгруппированные по непустым категориям в порядке объявления категорий
+     */
+    public Map<MenuItemCategory, List<MenuItem>> availableByCategory() {
+        Map<MenuItemCategory, List<MenuItem>> copies = new EnumMap<>(MenuItemCategory.class);
+        availableByCategory.forEach((category, items) -> copies.put(category, copiesOf(items)));
+        return copies;
+    }
+
+    public List<MenuItem> vegetarian() {
+        return copiesOf(vegetarian);
+    }
+
+    public List<MenuItem> vegan() {
+        return copiesOf(vegan);
+    }
+
+    public List<MenuItem> glutenFree() {
+        return copiesOf(glutenFree);
+    }
+
+    /**
+     * Комбинированный фильтр: пересечение масок признаков и объединение масок выбранных категорий
+     */
+    public List<MenuItem> filter(MenuFilter criteria) {
+        long[] result = allBits.clone();
+        applyFlag(result, availableBits, criteria.getAvailable());
+        applyFlag(result, vegetarianBits, criteria.getVegetarian());
+        applyFlag(result, veganBits, criteria.getVegan());
+        applyFlag(result, glutenFreeBits, criteria.getGlutenFree());
+        if (criteria.getCategories() != null && !criteria.getCategories().isEmpty()) {
+            long[] anyCategory = new long[result.length];
+            for (MenuItemCategory category : criteria.getCategories()) {
+                long[] mask = categoryBits[category.ordinal()];
+                for (int word = 0; word < anyCategory.length; word++) {
+                    anyCategory[word] |= mask[word];
+                }
+            }
+            for (int word = 0; word < result.length; word++) {
+                result[word] &= anyCategory[word];
+            }
+        }
+
+        List<MenuItem> items = new ArrayList<>();
+        for (int word = 0; word < result.length; word++) {
+            long bits = result[word];
+            while (bits != 0) {
+                items.add(copyOf(all.get(word * Long.SIZE + Long.numberOfTrailingZeros(bits))));
+                bits &= bits - 1;
+            }
+        }
+        return items;
+    }
+
+    private static void applyFlag(long[] result, long[] mask, Boolean required) {
+        if (required == null) {
+            return;
+        }
+        for (int word = 0; word < result.length; word++) {
+            result[word] &= required ? mask[word] : ~mask[word];
+        }
+    }
+
+    private long[] bits(Predicate<MenuItem> predicate) {
+        long[] bits = new long[(all.size() + Long.SIZE - 1) / Long.SIZE];
+        for (int position = 0; position < all.size(); position++) {
+            if (predicate.test(all.get(position))) {
+                bits[position / Long.SIZE] |= 1L << (position % Long.SIZE);
+            }
+        }
+        return bits;
+    }
+
+    private List<MenuItem> filter(Predicate<MenuItem> predicate) {
+        return all.stream()
+                .filter(predicate)
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    }
+
+    private static Map<MenuItemCategory, List<MenuItem>> groupByCategory(List<MenuItem> items) {
+        Map<MenuItemCategory, List<MenuItem>> grouped = items.stream()
+                .collect(Collectors.groupingBy(MenuItem::getCategory,
+                        () -> new EnumMap<>(MenuItemCategory.class),
+                        Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)));
+        return Collections.unmodifiableMap(grouped);
+    }
+
+    private static List<MenuItem> copiesOf(List<MenuItem> items) {
+        List<MenuItem> copies = new ArrayList<>(items.size());
+        items.forEach(item -> copies.add(copyOf(item)));
+        return copies;
+    }
+
+    private static MenuItem copyOf(MenuItem item) {
+        return MenuItem.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .price(item.getPrice())
+                .imageUrl(item.getImageUrl())
+                .category(item.getCategory())
+                .available(item.isAvailable())
+                .isVegetarian(item.isVegetarian())
+                .isVegan(item.isVegan())
+                .isGlutenFree(item.isGlutenFree())
+                .build();
+    }
+}
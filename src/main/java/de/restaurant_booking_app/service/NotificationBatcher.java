@@ -0,0 +1,171 @@
+package de.restaurant_booking_app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Накопление исходящих уведомлений одного канала в пачки.
+ * <p>
+ * Пачка уходит одним запросом, как только набирается {@code maxBatchSize} сообщений или
+ * истекает окно {@code window} с момента первого сообщения пачки. Отправитель возвращает
+ * результат по каждому получателю в порядке сообщений: {@code null} — доставлено,
+ * иначе текст ошибки; future соответствующего сообщения завершается ошибкой.
+ * <p>
+ * Future сообщения не связан с запросом пачки обратно: его отмена или таймаут у вызывающего
+ * не отменяет общий запрос, и остальные сообщения пачки получают свой результат.
+ */
+@Slf4j
+class NotificationBatcher<T> {
+
+    private final String channel;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final Function<List<T>, CompletableFuture<List<String>>> sender;
+    private final ScheduledExecutorService scheduler;
+    private final DistributionSummary batchSizes;
+    private final Counter requests;
+
+    private final Object lock = new Object();
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private List<Pending<T>> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    NotificationBatcher(String channel, int maxBatchSize, Duration window,
+                        Function<List<T>, CompletableFuture<List<String>>> sender, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.sender = sender;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("notification-batch-" + channel + "-"));
+        this.batchSizes = DistributionSummary.builder("notification.batch.size")
+                .description("Количество сообщений в одном запросе к провайдеру")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        this.requests = Counter.builder("notification.batch.requests")
+                .description("Пакетные запросы к провайдеру уведомлений")
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Добавление сообщения в текущую пачку
+     */
+    CompletableFuture<Void> submit(T message) {
+        Pending<T> entry = new Pending<>(message, new CompletableFuture<>());
+        List<Pending<T>> full = null;
+        synchronized (lock) {
+            pending.add(entry);
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new ArrayList<>();
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            // Отправка асинхронная, вызывающий поток только формирует запрос
+            send(full);
+        }
+        return entry.future();
+    }
+
+    /**
+     * Отправка накопленной пачки и остановка таймера окна
+     */
+    void shutdown() {
+        flush();
+        scheduler.shutdown();
+    }
+
+    /**
+     * Ожидание ответов на отправленные пачки, но не дольше timeout
+     *
+     * @return {@code false}, если к сроку остались запросы без ответа
+     */
+    boolean awaitInFlight(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        // Пачка, которую таймер окна отправляет прямо сейчас, тоже должна попасть в ожидание
+        if (!scheduler.awaitTermination(timeout, unit)) {
+            return false;
+        }
+        try {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+                    .get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // Ошибка запроса уже передана в future сообщений пачки
+        } catch (TimeoutException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private void flush() {
+        List<Pending<T>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            scheduledFlush = null;
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<Pending<T>> batch) {
+        batchSizes.record(batch.size());
+        requests.increment();
+        log.debug("Отправка пачки из {} сообщений, канал {}", batch.size(), channel);
+
+        CompletableFuture<List<String>> result;
+        try {
+            result = sender.apply(batch.stream().map(Pending::message).toList());
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<List<String>> completion = result.whenComplete((errors, e) -> {
+            if (e == null && errors.size() != batch.size()) {
+                e = new IllegalStateException("Провайдер вернул " + errors.size() + " результатов на "
+                        + batch.size() + " сообщений");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                CompletableFuture<Void> future = batch.get(i).future();
+                if (e != null) {
+                    future.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else if (errors.get(i) != null) {
+                    future.completeExceptionally(new IllegalStateException(errors.get(i)));
+                } else {
+                    future.complete(null);
+                }
+            }
+        });
+        // Ожидание при остановке охватывает и завершение future сообщений
+        inFlight.add(completion);
+        completion.whenComplete((errors, e) -> inFlight.remove(completion));
+    }
+
+    private record Pending<T>(T message, CompletableFuture<Void> future) {
+    }
+}
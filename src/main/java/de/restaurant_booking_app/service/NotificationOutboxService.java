@@ -0,0 +1,301 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.Booking;
+import de.restaurant_booking_app.model.NotificationChannel;
+import de.restaurant_booking_app.model.NotificationOutbox;
+import de.restaurant_booking_app.model.NotificationType;
+import de.restaurant_booking_app.model.OutboxStatus;
+import de.restaurant_booking_app.repository.BookingRepository;
+import de.restaurant_booking_app.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Транзакционный outbox для уведомлений о бронированиях.
+ * <p>
+ * Запись в outbox выполняется в той же транзакции, что и изменение бронирования,
+ * а отправка писем и SMS происходит в фоне пакетами, поэтому задержки SMTP и SMS-шлюза
+ * не удерживают соединение с БД и поток запроса. Доставка — «как минимум один раз».
+ * <p>
+ * Каждый канал (письмо, SMS клиенту, SMS администратору) — отдельная запись, поэтому сбой
+ * одного канала повторяется без повторной отправки остальных. Письма порции отправляются пакетом
+ * через одно SMTP-соединение, результат записывается для каждого письма. Повторы идут с экспоненциальной
+ * задержкой через {@code next_attempt_at}. Перед отправкой записи захватываются меткой и сроком
+ * захвата: другой экземпляр их не возьмет, а после падения экземпляра они вернутся в работу.
+ */
+@Service
+@Slf4j
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final BookingRepository bookingRepository;
+    private final EmailService emailService;
+    private final NotificationService notificationService;
+    private final Counter sent;
+    private final Counter retries;
+    private final Counter failures;
+    private final ExecutorService resultExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("outbox-result-"));
+
+    @Value("${admin.phone:}")
+    private String adminPhone;
+
+    @Value("${notification.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notification.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.retry-delay:PT30S}")
+    private Duration retryDelay;
+
+    @Value("${notification.outbox.max-retry-delay:PT1H}")
+    private Duration maxRetryDelay;
+
+    @Value("${notification.outbox.lease:PT5M}")
+    private Duration lease;
+
+    public NotificationOutboxService(NotificationOutboxRepository outboxRepository,
+                                     BookingRepository bookingRepository,
+                                     EmailService emailService,
+                                     NotificationService notificationService,
+                                     MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.bookingRepository = bookingRepository;
+        this.emailService = emailService;
+        this.notificationService = notificationService;
+        this.sent = resultCounter(meterRegistry, "sent");
+        this.retries = resultCounter(meterRegistry, "retry");
+        this.failures = resultCounter(meterRegistry, "failed");
+    }
+
+    /**
+     * Постановка уведомления в очередь (в рамках текущей транзакции)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(NotificationType type, Long bookingId) {
+        for (NotificationChannel channel : type.getChannels()) {
+            outboxRepository.save(NotificationOutbox.builder()
+                    .type(type)
+                    .bookingId(bookingId)
+                    .channel(channel)
+                    .build());
+        }
+        log.debug("Уведомление {} для бронирования ID {} поставлено в очередь", type, bookingId);
+    }
+
+    /**
+     * Фоновая отправка накопленных уведомлений пакетами
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-ms:2000}")
+    public void dispatchPending() {
+        List<NotificationOutbox> batch;
+        do {
+            batch = claimBatch();
+            List<CompletableFuture<Void>> results = new ArrayList<>(batch.size());
+            List<NotificationOutbox> emails = new ArrayList<>();
+            for (NotificationOutbox entry : batch) {
+                if (entry.getChannel() == NotificationChannel.EMAIL) {
+                    emails.add(entry);
+                } else {
+                    results.add(dispatch(entry));
+                }
+            }
+            results.addAll(dispatchEmails(emails));
+            awaitResults(results);
+            if (!batch.isEmpty()) {
+                log.debug("Обработано {} уведомлений из outbox", batch.size());
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        resultExecutor.shutdown();
+        if (!resultExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Не все результаты отправки уведомлений записаны в outbox до остановки");
+        }
+    }
+
+    /**
+     * Удаление отправленных уведомлений старше недели
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void purgeSent() {
+        int deleted = outboxRepository.deleteProcessedBefore(OutboxStatus.SENT, LocalDateTime.now().minusWeeks(1));
+        log.info("Удалено {} отправленных уведомлений из outbox", deleted);
+    }
+
+    /**
+     * Захват порции записей, срок отправки которых наступил
+     */
+    private List<NotificationOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.findDueIds(OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String token = UUID.randomUUID().toString();
+        outboxRepository.claim(ids, OutboxStatus.PENDING, now, token, now.plus(lease));
+        return outboxRepository.findByClaimTokenOrderByIdAsc(token);
+    }
+
+    /**
+     * Запуск отправки SMS. Статус записи обновляется после ответа шлюза, а не в момент постановки запроса.
+     */
+    private CompletableFuture<Void> dispatch(NotificationOutbox entry) {
+        CompletableFuture<Void> delivery;
+        try {
+            Optional<Booking> booking = findBooking(entry);
+            delivery = booking.isPresent() ? send(entry, booking.get()) : CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            delivery = CompletableFuture.failedFuture(e);
+        }
+        return completeAsync(entry, delivery);
+    }
+
+    /**
+     * Письма порции формируются заранее и отправляются одним пакетом через {@link EmailService#sendBatch}
+     */
+    private List<CompletableFuture<Void>> dispatchEmails(List<NotificationOutbox> entries) {
+        List<CompletableFuture<Void>> results = new ArrayList<>(entries.size());
+        List<NotificationOutbox> sending = new ArrayList<>(entries.size());
+        List<MimeMessage> messages = new ArrayList<>(entries.size());
+        for (NotificationOutbox entry : entries) {
+            try {
+                Optional<Booking> booking = findBooking(entry);
+                MimeMessage message = booking.isPresent()
+                        ? emailService.buildBookingNotification(entry.getType(), booking.get()) : null;
+                if (message == null) {
+                    results.add(completeAsync(entry, CompletableFuture.completedFuture(null)));
+                } else {
+                    sending.add(entry);
+                    messages.add(message);
+                }
+            } catch (Exception e) {
+                results.add(completeAsync(entry, CompletableFuture.failedFuture(e)));
+            }
+        }
+        if (messages.isEmpty()) {
+            return results;
+        }
+        List<SmtpTransportPool.Delivery> deliveries = emailService.sendBatch(messages);
+        for (int i = 0; i < sending.size(); i++) {
+            SmtpTransportPool.Delivery delivery = deliveries.get(i);
+            results.add(completeAsync(sending.get(i), delivery.isSent()
+                    ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.failedFuture(delivery.error())));
+        }
+        return results;
+    }
+
+    private Optional<Booking> findBooking(NotificationOutbox entry) {
+        Optional<Booking> booking = bookingRepository.findById(entry.getBookingId());
+        if (booking.isEmpty()) {
+            log.warn("Бронирование ID {} для уведомления {} не найдено, уведомление пропущено",
+                    entry.getBookingId(), entry.getType());
+        }
+        return booking;
+    }
+
+    /**
+     * Запись результата в БД выполняется вне потоков ввода-вывода HTTP-клиента
+     */
+    private CompletableFuture<Void> completeAsync(NotificationOutbox entry, CompletableFuture<Void> delivery) {
+        return delivery.handleAsync((ignored, e) -> {
+            complete(entry, e);
+            return null;
+        }, resultExecutor);
+    }
+
+    private void complete(NotificationOutbox entry, Throwable error) {
+        if (error == null) {
+            entry.setStatus(OutboxStatus.SENT);
+            sent.increment();
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            entry.setAttempts(entry.getAttempts() + 1);
+            String message = String.valueOf(cause.getMessage());
+            entry.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+            if (entry.getAttempts() >= maxAttempts) {
+                entry.setStatus(OutboxStatus.FAILED);
+                failures.increment();
+            } else {
+                entry.setNextAttemptAt(LocalDateTime.now().plus(retryDelay(entry.getAttempts())));
+                retries.increment();
+            }
+            log.error("Ошибка при отправке уведомления {} ({}) для бронирования ID {} (попытка {}): {}",
+                    entry.getType(), entry.getChannel(), entry.getBookingId(), entry.getAttempts(), cause.getMessage(), cause);
+        }
+        entry.setClaimToken(null);
+        entry.setProcessedAt(LocalDateTime.now());
+        outboxRepository.save(entry);
+    }
+
+    private CompletableFuture<Void> send(NotificationOutbox entry, Booking booking) {
+        return switch (entry.getChannel()) {
+            case EMAIL -> throw new IllegalStateException("Письма отправляются пакетом через dispatchEmails");
+            case SMS -> switch (entry.getType()) {
+                case BOOKING_CONFIRMATION -> notificationService.sendBookingConfirmationSms(booking);
+                case BOOKING_CANCELLATION -> notificationService.sendBookingCancellationSms(booking);
+                case BOOKING_UPDATE -> CompletableFuture.completedFuture(null);
+            };
+            case ADMIN_SMS -> notificationService.sendAdminNotificationSms(booking, adminPhone);
+        };
+    }
+
+    /**
+     * Ожидание результатов порции перед захватом следующей, чтобы число запросов в полете
+     * не превышало размер порции. Записи без результата вернутся в работу по истечении срока захвата.
+     */
+    private void awaitResults(List<CompletableFuture<Void>> results) {
+        try {
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                    .get(lease.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Не дождались результатов отправки {} уведомлений: {}", results.size(), e.toString());
+        }
+    }
+
+    /**
+     * Экспоненциальная задержка перед повтором: retry-delay, 2×, 4×… не больше max-retry-delay
+     */
+    private Duration retryDelay(int attempts) {
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxRetryDelay) > 0 ? maxRetryDelay : delay;
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("notification.outbox.dispatch")
+                .description("Результаты отправки уведомлений из outbox")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
\ No newline at end of file
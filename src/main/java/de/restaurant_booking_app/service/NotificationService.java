@@ -1,29 +1,85 @@
 package de.restaurant_booking_app.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.restaurant_booking_app.dto.BookingReminder;
 import de.restaurant_booking_app.model.Booking;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Отправка SMS и Push-уведомлений через асинхронный HTTP-клиент.
+ * <p>
+ * Методы возвращают {@link CompletableFuture} сразу после постановки запроса: ожидание ответа
+ * не занимает ни поток запроса, ни поток планировщика. Каждый вызов ограничен сроком
+ * {@code notification.http.deadline} (или переданным явно); по истечении срока одиночный запрос отменяется.
+ * Ошибки уведомлений о бронированиях записываются в лог и возвращаются в future,
+ * чтобы outbox мог повторить отправку; напоминание сообщает об ошибке значением false.
+ * <p>
+ * При {@code notification.batch.enabled} сообщения накапливаются в течение {@code notification.batch.window}
+ * и уходят пачкой: SMS — одним запросом на {@code sms.api.batch-url} (если он задан), Push — multicast-запросом
+ * с {@code registration_ids} на каждую группу одинаковых уведомлений. Результат по каждому получателю
+ * разбирается из ответа провайдера и завершает future своего вызова. Срок отдельного вызова в пачке
+ * завершает ошибкой только его future: общий запрос пачки не отменяется, его ограничивает
+ * {@code notification.http.deadline}. При остановке приложения накопленные пачки отправляются,
+ * и ответы на них ожидаются не дольше этого срока, пока HTTP-клиент еще открыт.
+ */
 @Service
 @Slf4j
 public class NotificationService {
 
-    private final RestTemplate restTemplate;
+    /**
+     * Максимум токенов в одном multicast-запросе FCM
+     */
+    private static final int PUSH_MULTICAST_LIMIT = 500;
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final ObjectMapper objectMapper;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private final Timer smsSuccessTimer;
+    private final Timer smsFailureTimer;
+    private final Timer pushSuccessTimer;
+    private final Timer pushFailureTimer;
+    private final Counter smsFailures;
+    private final Counter pushFailures;
+    private final NotificationBatcher<SmsMessage> smsBatcher;
+    private final NotificationBatcher<PushMessage> pushBatcher;
 
     @Value("${sms.api.url:}")
     private String smsApiUrl;
 
+    @Value("${sms.api.batch-url:}")
+    private String smsBatchUrl;
+
     @Value("${sms.api.key:}")
     private String smsApiKey;
 
@@ -36,18 +92,62 @@ public class NotificationService {
     @Value("${notification.enabled:false}")
     private boolean notificationEnabled;
 
+    @Value("${notification.http.deadline:PT10S}")
+    private Duration defaultDeadline;
+
     @Autowired
-    public NotificationService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public NotificationService(CloseableHttpAsyncClient httpClient, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${notification.batch.enabled:true}") boolean batchEnabled,
+                               @Value("${notification.batch.window:PT0.05S}") Duration batchWindow,
+                               @Value("${notification.batch.max-size:500}") int batchMaxSize) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.smsSuccessTimer = sendTimer(meterRegistry, "sms", "success");
+        this.smsFailureTimer = sendTimer(meterRegistry, "sms", "failure");
+        this.pushSuccessTimer = sendTimer(meterRegistry, "push", "success");
+        this.pushFailureTimer = sendTimer(meterRegistry, "push", "failure");
+        this.smsFailures = failureCounter(meterRegistry, "sms");
+        this.pushFailures = failureCounter(meterRegistry, "push");
+        if (batchEnabled) {
+            this.smsBatcher = new NotificationBatcher<>("sms", batchMaxSize, batchWindow, this::sendSmsBatch, meterRegistry);
+            this.pushBatcher = new NotificationBatcher<>("push", Math.min(batchMaxSize, PUSH_MULTICAST_LIMIT), batchWindow,
+                    this::sendPushBatch, meterRegistry);
+        } else {
+            this.smsBatcher = null;
+            this.pushBatcher = null;
+        }
+    }
+
+    /**
+     * Отправка накопленных пачек при остановке приложения. HTTP-клиент закрывается после этого бина,
+     * поэтому ответы на отправленные пачки ожидаются здесь, но не дольше notification.http.deadline.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (smsBatcher == null) {
+            return;
+        }
+        smsBatcher.shutdown();
+        pushBatcher.shutdown();
+        long deadline = System.nanoTime() + defaultDeadline.toNanos();
+        try {
+            boolean smsCompleted = smsBatcher.awaitInFlight(defaultDeadline.toNanos(), TimeUnit.NANOSECONDS);
+            boolean pushCompleted = pushBatcher.awaitInFlight(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            if (!smsCompleted || !pushCompleted) {
+                log.warn("Не все пачки уведомлений получили ответ до остановки");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
      * Отправка SMS о создании бронирования
      */
-    public void sendBookingConfirmationSms(Booking booking) {
+    public CompletableFuture<Void> sendBookingConfirmationSms(Booking booking) {
         if (!notificationEnabled || booking.getCustomerPhone() == null || booking.getCustomerPhone().isEmpty()) {
             log.debug("SMS-уведомление отключено или номер телефона не указан");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         try {
@@ -62,19 +162,26 @@ public class NotificationService {
                     booking.getEndTime().format(formatter)
             );
 
-            sendSms(booking.getCustomerPhone(), message);
-            log.info("SMS с подтверждением бронирования отправлено на номер: {}", booking.getCustomerPhone());
+            String phone = booking.getCustomerPhone();
+            return sendSms(phone, message).whenComplete((ignored, e) -> {
+                if (e == null) {
+                    log.info("SMS с подтверждением бронирования отправлено на номер: {}", phone);
+                } else {
+                    log.error("Ошибка при отправке SMS с подтверждением бронирования: {}", causeOf(e).getMessage());
+                }
+            });
         } catch (Exception e) {
             log.error("Ошибка при отправке SMS с подтверждением бронирования: {}", e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 
     /**
      * Отправка SMS об отмене бронирования
      */
-    public void sendBookingCancellationSms(Booking booking) {
+    public CompletableFuture<Void> sendBookingCancellationSms(Booking booking) {
         if (!notificationEnabled || booking.getCustomerPhone() == null || booking.getCustomerPhone().isEmpty()) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         try {
@@ -90,45 +197,62 @@ public class NotificationService {
                     booking.getEndTime().format(formatter)
             );
 
-            sendSms(booking.getCustomerPhone(), message);
-            log.info("SMS с отменой бронирования отправлено на номер: {}", booking.getCustomerPhone());
+            String phone = booking.getCustomerPhone();
+            return sendSms(phone, message).whenComplete((ignored, e) -> {
+                if (e == null) {
+                    log.info("SMS с отменой бронирования отправлено на номер: {}", phone);
+                } else {
+                    log.error("Ошибка при отправке SMS с отменой бронирования: {}", causeOf(e).getMessage());
+                }
+            });
         } catch (Exception e) {
             log.error("Ошибка при отправке SMS с отменой бронирования: {}", e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 
     /**
      * Отправка SMS с напоминанием о бронировании (запускается по расписанию)
+     *
+     * @return future с false, если при отправке произошла ошибка
      */
-    public void sendBookingReminderSms(Booking booking) {
-        if (!notificationEnabled || booking.getCustomerPhone() == null || booking.getCustomerPhone().isEmpty()) {
-            return;
+    public CompletableFuture<Boolean> sendBookingReminderSms(BookingReminder reminder) {
+        if (!notificationEnabled || reminder.getCustomerPhone() == null || reminder.getCustomerPhone().isEmpty()) {
+            return CompletableFuture.completedFuture(true);
         }
 
         try {
             String message = String.format(
-                    "Уважаемый(ая) %s, напоминаем о вашем бронировании #%d сегодня в %s. " +
+                    "Уважаемый(ая) %s, напоминаем о вашем бронировании #%d на %s. " +
                             "Столик: %d. " +
                             "Ресторан \"У Клода\"",
-                    booking.getCustomerName(),
-                    booking.getId(),
-                    booking.getStartTime().format(DateTimeFormatter.ofPattern("HH:mm")),
-                    booking.getTable().getTableNumber()
+                    reminder.getCustomerName(),
+                    reminder.getId(),
+                    reminder.getStartTime().format(formatter),
+                    reminder.getTableNumber()
             );
 
-            sendSms(booking.getCustomerPhone(), message);
-            log.info("SMS с напоминанием о бронировании отправлено на номер: {}", booking.getCustomerPhone());
+            String phone = reminder.getCustomerPhone();
+            return sendSms(phone, message).handle((ignored, e) -> {
+                if (e == null) {
+                    log.info("SMS с напоминанием о бронировании отправлено на номер: {}", phone);
+                    return true;
+                }
+                log.error("Ошибка при отправке SMS с напоминанием о бронировании: {}", causeOf(e).getMessage());
+                return false;
+            });
         } catch (Exception e) {
             log.error("Ошибка при отправке SMS с напоминанием о бронировании: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(false);
         }
     }
 
     /**
      * Отправка SMS-уведомления администратору о новом бронировании
      */
-    public void sendAdminNotificationSms(Booking booking, String adminPhone) {
+    public CompletableFuture<Void> sendAdminNotificationSms(Booking booking, String adminPhone) {
         if (!notificationEnabled || adminPhone == null || adminPhone.isEmpty()) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         try {
@@ -144,77 +268,269 @@ public class NotificationService {
                     booking.getEndTime().format(formatter)
             );
 
-            sendSms(adminPhone, message);
-            log.info("SMS с уведомлением администратору отправлено на номер: {}", adminPhone);
+            return sendSms(adminPhone, message).whenComplete((ignored, e) -> {
+                if (e == null) {
+                    log.info("SMS с уведомлением администратору отправлено на номер: {}", adminPhone);
+                } else {
+                    log.error("Ошибка при отправке SMS с уведомлением администратору: {}", causeOf(e).getMessage());
+                }
+            });
         } catch (Exception e) {
             log.error("Ошибка при отправке SMS с уведомлением администратору: {}", e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 
     /**
      * Отправка Push-уведомления
      */
-    public void sendPushNotification(String userId, String title, String body) {
+    public CompletableFuture<Void> sendPushNotification(String userId, String title, String body) {
+        return sendPushNotification(userId, title, body, defaultDeadline);
+    }
+
+    /**
+     * Отправка Push-уведомления с явным сроком ожидания ответа
+     */
+    public CompletableFuture<Void> sendPushNotification(String userId, String title, String body, Duration deadline) {
         if (!notificationEnabled) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        try {
-            log.debug("Отправка push-уведомления пользователю {}: {} - {}", userId, title, body);
+        log.debug("Отправка push-уведомления пользователю {}: {} - {}", userId, title, body);
 
+        CompletableFuture<Void> delivery;
+        long started = System.nanoTime();
+        if (pushBatcher != null) {
+            // Срок ограничивает только этот вызов, запрос пачки продолжается для остальных получателей
+            delivery = pushBatcher.submit(new PushMessage(userId, title, body))
+                    .orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
             // Пример вызова Push API (например, Firebase)
             Map<String, Object> payload = new HashMap<>();
             payload.put("to", userId);
-
-            Map<String, String> notification = new HashMap<>();
-            notification.put("title", title);
-            notification.put("body", body);
-
-            payload.put("notification", notification);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "key=" + pushApiKey);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
-
-            restTemplate.postForEntity(pushApiUrl, request, String.class);
-
-            log.info("Push-уведомление успешно отправлено пользователю: {}", userId);
-        } catch (Exception e) {
-            log.error("Ошибка при отправке Push-уведомления: {}", e.getMessage(), e);
+            payload.put("notification", pushNotification(title, body));
+            delivery = post(pushApiUrl, payload, pushHeaders(), deadline);
         }
+        return delivery.whenComplete((ignored, e) -> {
+            if (e == null) {
+                pushSuccessTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                log.info("Push-уведомление успешно отправлено пользователю: {}", userId);
+            } else {
+                pushFailureTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                pushFailures.increment();
+                log.error("Ошибка при отправке Push-уведомления: {}", causeOf(e).getMessage());
+            }
+        });
     }
 
     /**
      * Отправка SMS
      */
-    private void sendSms(String phoneNumber, String message) {
+    public CompletableFuture<Void> sendSms(String phoneNumber, String message) {
+        return sendSms(phoneNumber, message, defaultDeadline);
+    }
+
+    /**
+     * Отправка SMS с явным сроком ожидания ответа шлюза
+     */
+    public CompletableFuture<Void> sendSms(String phoneNumber, String message, Duration deadline) {
         // Проверка параметров конфигурации
         if (smsApiUrl == null || smsApiUrl.isEmpty() || smsApiKey == null || smsApiKey.isEmpty()) {
             log.warn("SMS API не настроен. Сообщение не отправлено.");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        try {
+        CompletableFuture<Void> delivery;
+        long started = System.nanoTime();
+        if (smsBatcher != null && smsBatchUrl != null && !smsBatchUrl.isEmpty()) {
+            // Срок ограничивает только этот вызов, запрос пачки продолжается для остальных номеров
+            delivery = smsBatcher.submit(new SmsMessage(phoneNumber, message))
+                    .orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
             // Формируем запрос к SMS шлюзу
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("phone", phoneNumber);
             requestBody.put("message", message);
             requestBody.put("api_key", smsApiKey);
+            delivery = post(smsApiUrl, requestBody, Map.of(), deadline);
+        }
+        return delivery.whenComplete((ignored, e) -> {
+            if (e == null) {
+                smsSuccessTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                log.debug("SMS успешно отправлено на номер: {}", phoneNumber);
+            } else {
+                smsFailureTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                smsFailures.increment();
+                log.error("Ошибка при отправке SMS: {}", causeOf(e).getMessage());
+            }
+        });
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+    /**
+     * Пакетная отправка SMS одним запросом. Шлюз отвечает массивом {@code results}
+     * в порядке сообщений; элемент с полем {@code error} означает отказ по этому номеру.
+     */
+    private CompletableFuture<List<String>> sendSmsBatch(List<SmsMessage> messages) {
+        List<Map<String, String>> items = new ArrayList<>(messages.size());
+        for (SmsMessage message : messages) {
+            Map<String, String> item = new HashMap<>();
+            item.put("phone", message.phone());
+            item.put("message", message.text());
+            items.add(item);
+        }
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("api_key", smsApiKey);
+        requestBody.put("messages", items);
 
-            // Отправляем запрос к SMS API
-            restTemplate.postForEntity(smsApiUrl, request, String.class);
+        return execute(smsBatchUrl, requestBody, Map.of(), defaultDeadline)
+                .thenApply(this::recipientErrors);
+    }
 
-            log.debug("SMS успешно отправлено на номер: {}", phoneNumber);
-        } catch (Exception e) {
-            log.error("Ошибка при отправке SMS: {}", e.getMessage(), e);
-            throw e;
+    /**
+     * Multicast-отправка Push-уведомлений: одинаковые уведомления уходят одним запросом
+     * с {@code registration_ids}, ответ FCM разбирается по токенам. Ошибка запроса группы
+     * не затрагивает остальные группы пачки.
+     */
+    private CompletableFuture<List<String>> sendPushBatch(List<PushMessage> messages) {
+        Map<List<String>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            PushMessage message = messages.get(i);
+            groups.computeIfAbsent(Arrays.asList(message.title(), message.body()), key -> new ArrayList<>()).add(i);
+        }
+
+        String[] errors = new String[messages.size()];
+        List<CompletableFuture<Void>> requests = new ArrayList<>(groups.size());
+        groups.forEach((content, indexes) -> {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("registration_ids", indexes.stream().map(i -> messages.get(i).userId()).toList());
+            payload.put("notification", pushNotification(content.get(0), content.get(1)));
+
+            requests.add(execute(pushApiUrl, payload, pushHeaders(), defaultDeadline)
+                    .thenApply(this::recipientErrors)
+                    .handle((groupErrors, e) -> {
+                        String failure = null;
+                        if (e != null) {
+                            Throwable cause = causeOf(e);
+                            failure = Objects.toString(cause.getMessage(), cause.getClass().getSimpleName());
+                        } else if (groupErrors.size() != indexes.size()) {
+                            failure = "Push API вернул " + groupErrors.size() + " результатов на " + indexes.size() + " токенов";
+                        }
+                        for (int j = 0; j < indexes.size(); j++) {
+                            errors[indexes.get(j)] = failure != null ? failure : groupErrors.get(j);
+                        }
+                        return null;
+                    }));
+        });
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> Arrays.asList(errors));
+    }
+
+    /**
+     * Ошибки по получателям из массива {@code results} ответа провайдера, {@code null} — доставлено
+     */
+    private List<String> recipientErrors(SimpleHttpResponse response) {
+        JsonNode results;
+        try {
+            results = objectMapper.readTree(response.getBodyBytes()).path("results");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!results.isArray()) {
+            throw new IllegalStateException("В ответе провайдера нет результатов по получателям");
+        }
+
+        List<String> errors = new ArrayList<>(results.size());
+        for (JsonNode result : results) {
+            JsonNode error = result.get("error");
+            errors.add(error == null || error.isNull() ? null : error.asText());
+        }
+        return errors;
+    }
+
+    private Map<String, String> pushNotification(String title, String body) {
+        Map<String, String> notification = new HashMap<>();
+        notification.put("title", title);
+        notification.put("body", body);
+        return notification;
+    }
+
+    private Map<String, String> pushHeaders() {
+        return Map.of("Authorization", "key=" + pushApiKey);
+    }
+
+    private CompletableFuture<Void> post(String url, Object body, Map<String, String> headers, Duration deadline) {
+        return execute(url, body, headers, deadline).thenApply(response -> null);
+    }
+
+    /**
+     * POST с JSON-телом. Future завершается ошибкой при статусе 4xx/5xx, сетевой ошибке
+     * или истечении срока; в последнем случае запрос отменяется и соединение освобождается.
+     */
+    private CompletableFuture<SimpleHttpResponse> execute(String url, Object body, Map<String, String> headers, Duration deadline) {
+        SimpleRequestBuilder request = SimpleRequestBuilder.post(url);
+        headers.forEach(request::addHeader);
+        try {
+            request.setBody(objectMapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
         }
+
+        CompletableFuture<SimpleHttpResponse> result = new CompletableFuture<>();
+        Future<SimpleHttpResponse> call = httpClient.execute(request.build(), new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                if (response.getCode() >= 400) {
+                    result.completeExceptionally(new IllegalStateException(
+                            "HTTP " + response.getCode() + " от " + url + ": " + response.getBodyText()));
+                } else {
+                    result.complete(response);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        return result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, e) -> {
+                    if (e instanceof TimeoutException) {
+                        call.cancel(true);
+                    }
+                });
+    }
+
+    private record SmsMessage(String phone, String text) {
+    }
+
+    private record PushMessage(String userId, String title, String body) {
+    }
+
+    private static Throwable causeOf(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String channel, String outcome) {
+        return Timer.builder("notification.send.duration")
+                .description("Длительность вызова SMS-шлюза и Push API")
+                .tag("channel", channel)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    private static Counter failureCounter(MeterRegistry meterRegistry, String channel) {
+        return Counter.builder("notification.send.failures")
+                .description("Количество ошибок отправки уведомлений")
+                .tag("channel", channel)
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.exception.InvalidOrderException;
+import de.restaurant_booking_app.model.MenuItem;
+import de.restaurant_booking_app.model.OrderDetail;
+import de.restaurant_booking_app.model.RestaurantOrder;
+import de.restaurant_booking_app.repository.OrderJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+@Slf4j
+public class OrderService {
+
+    private final OrderJdbcRepository orderJdbcRepository;
+    private final MenuService menuService;
+    private final PopularItemsTracker popularItemsTracker;
+
+    public OrderService(OrderJdbcRepository orderJdbcRepository,
+                        MenuService menuService,
+                        PopularItemsTracker popularItemsTracker) {
+        this.orderJdbcRepository = orderJdbcRepository;
+        this.menuService = menuService;
+        this.popularItemsTracker = popularItemsTracker;
+    }
+
+    /**
+     * Оформление заказа
+     */
+    @Transactional
+    public RestaurantOrder placeOrder(RestaurantOrder order) {
+        return placeOrders(Collections.singletonList(order)).get(0);
+    }
+
+    /**
+     * Пакетное оформление заказов: цены берутся из меню, позиции вставляются пакетами,
+     * а после коммита заказы учитываются в статистике популярности блюд
+     */
+    @Transactional
+    public List<RestaurantOrder> placeOrders(List<RestaurantOrder> orders) {
+        LocalDateTime now = LocalDateTime.now();
+        for (RestaurantOrder order : orders) {
+            prepare(order, now);
+        }
+        orderJdbcRepository.insertAll(orders);
+        log.info("Оформлено заказов: {}", orders.size());
+
+        Runnable track = () -> orders.forEach(order -> order.getDetails().forEach(detail ->
+                popularItemsTracker.record(detail.getMenuItemId(), detail.getQuantity(), order.getCreatedAt())));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    track.run();
+                }
+            });
+        } else {
+            track.run();
+        }
+        return orders;
+    }
+
+    private void prepare(RestaurantOrder order, LocalDateTime now) {
+        if (order.getDetails() == null || order.getDetails().isEmpty()) {
+            throw new InvalidOrderException("Заказ должен содержать хотя бы одну позицию");
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderDetail detail : order.getDetails()) {
+            if (detail.getQuantity() <= 0) {
+                throw new InvalidOrderException("Количество порций должно быть положительным");
+            }
+            MenuItem menuItem = menuService.getMenuItemById(detail.getMenuItemId());
+            if (!menuItem.isAvailable()) {
+                throw new InvalidOrderException("Блюдо \"" + menuItem.getName() + "\" сейчас недоступно");
+            }
+            detail.setPrice(menuItem.getPrice());
+            total = total.add(menuItem.getPrice().multiply(BigDecimal.valueOf(detail.getQuantity())));
+        }
+        order.setId(null);
+        order.setTotalAmount(total);
+        order.setCreatedAt(now);
+    }
+}
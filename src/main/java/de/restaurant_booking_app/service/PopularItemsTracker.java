@@ -0,0 +1,171 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.PopularityWindow;
+import de.restaurant_booking_app.repository.OrderDetailRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Популярность блюд в памяти по скользящим окнам.
+ * <p>
+ * Каждая позиция заказа учитывается в трех местах: общий {@link SpaceSavingSketch} за все
+ * время, кольцо из 24 часовых корзин (окно «сутки») и кольцо из 7 суточных корзин
+ * (окно «неделя»). Устаревшая корзина очищается при первом обращении к ней в новом периоде.
+ * Топ за окно получается слиянием его корзин, без запросов к БД.
+ */
+@Component
+@Slf4j
+public class PopularItemsTracker {
+
+    private static final int HOURS_PER_DAY = 24;
+    private static final int DAYS_PER_WEEK = 7;
+
+    private final OrderDetailRepository orderDetailRepository;
+    private final SpaceSavingSketch allTime;
+    private final Ring hourly;
+    private final Ring daily;
+
+    public PopularItemsTracker(OrderDetailRepository orderDetailRepository,
+                               @Value("${menu.popular.capacity:256}") int capacity) {
+        this.orderDetailRepository = orderDetailRepository;
+        this.allTime = new SpaceSavingSketch(capacity);
+        this.hourly = new Ring(HOURS_PER_DAY, 3600, capacity);
+        this.daily = new Ring(DAYS_PER_WEEK, 24 * 3600, capacity);
+    }
+
+    /**
+     * Загрузка накопленной статистики заказов при старте приложения. Блокировка берется до
+     * запросов: заказы, закоммиченные во время загрузки, учитываются в {@link #record} после
+     * нее и не стираются очисткой.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void warmUp() {
+        allTime.clear();
+        hourly.clear();
+        daily.clear();
+        List<Object[]> totals = orderDetailRepository.sumQuantityByMenuItem();
+        for (Object[] row : totals) {
+            allTime.offer((Long) row[0], ((Number) row[1]).longValue());
+        }
+        LocalDateTime weekAgo = LocalDateTime.now().minusDays(DAYS_PER_WEEK);
+        try (Stream<Object[]> recent = orderDetailRepository.streamDetailsCreatedAfter(weekAgo)) {
+            recent.forEach(row -> {
+                long quantity = ((Number) row[1]).longValue();
+                LocalDateTime createdAt = (LocalDateTime) row[2];
+                hourly.offer((Long) row[0], quantity, createdAt);
+                daily.offer((Long) row[0], quantity, createdAt);
+            });
+        }
+        log.info("Статистика популярности блюд загружена: {} блюд", totals.size());
+    }
+
+    /**
+     * Учет позиции заказа
+     */
+    public synchronized void record(Long menuItemId, long quantity, LocalDateTime orderedAt) {
+        allTime.offer(menuItemId, quantity);
+        hourly.offer(menuItemId, quantity, orderedAt);
+        daily.offer(menuItemId, quantity, orderedAt);
+    }
+
+    /**
+     * id самых популярных блюд за период, по убыванию количества заказанных порций
+     */
+    public synchronized List<Long> top(PopularityWindow window, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<SpaceSavingSketch.Counter> counters = switch (window) {
+            case DAY -> hourly.top(limit, LocalDateTime.now());
+            case WEEK -> daily.top(limit, LocalDateTime.now());
+            case ALL_TIME -> allTime.top(limit);
+        };
+        List<Long> ids = new ArrayList<>(counters.size());
+        counters.forEach(counter -> ids.add(counter.item()));
+        return ids;
+    }
+
+    /**
+     * Кольцо корзин фиксированной длительности
+     */
+    private static final class Ring {
+
+        private final SpaceSavingSketch[] buckets;
+        private final long[] periods;
+        private final long periodSeconds;
+
+        private Ring(int size, long periodSeconds, int capacity) {
+            this.buckets = new SpaceSavingSketch[size];
+            this.periods = new long[size];
+            this.periodSeconds = periodSeconds;
+            for (int i = 0; i < size; i++) {
+                buckets[i] = new SpaceSavingSketch(capacity);
+                periods[i] = Long.MIN_VALUE;
+            }
+        }
+
+        void offer(long item, long quantity, LocalDateTime at) {
+            long period = periodOf(at);
+            int index = (int) Math.floorMod(period, (long) buckets.length);
+            if (periods[index] > period) {
+                // Корзина уже занята более новым периодом: событие вне окна
+                return;
+            }
+            if (periods[index] < period) {
+                buckets[index].clear();
+                periods[index] = period;
+            }
+            buckets[index].offer(item, quantity);
+        }
+
+        List<SpaceSavingSketch.Counter> top(int limit, LocalDateTime now) {
+            long current = periodOf(now);
+            Map<Long, Long> totals = new HashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                if (periods[i] > current - buckets.length && periods[i] <= current) {
+                    for (SpaceSavingSketch.Counter counter : buckets[i].counters()) {
+                        totals.merge(counter.item(), counter.count(), Long::sum);
+                    }
+                }
+            }
+            PriorityQueue<SpaceSavingSketch.Counter> heap = new PriorityQueue<>(
+                    Comparator.comparingLong(SpaceSavingSketch.Counter::count));
+            totals.forEach((item, count) -> {
+                heap.offer(new SpaceSavingSketch.Counter(item, count, 0));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            });
+            List<SpaceSavingSketch.Counter> result = new ArrayList<>(heap);
+            result.sort(Comparator.comparingLong(SpaceSavingSketch.Counter::count).reversed()
+                    .thenComparingLong(SpaceSavingSketch.Counter::item));
+            return result;
+        }
+
+        void clear() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i].clear();
+                periods[i] = Long.MIN_VALUE;
+            }
+        }
+
+        private long periodOf(LocalDateTime at) {
+            return Math.floorDiv(at.toEpochSecond(ZoneOffset.UTC), periodSeconds);
+        }
+    }
+}
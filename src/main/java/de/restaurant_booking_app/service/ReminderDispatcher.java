@@ -0,0 +1,135 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.BookingReminder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Параллельная отправка напоминаний на выделенном пуле потоков
+ * с ограничением скорости под квоту SMS-провайдера
+ */
+@Component
+@Slf4j
+public class ReminderDispatcher {
+
+    private final NotificationService notificationService;
+    private final ExecutorService executor;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final int maxInFlight;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer runTimer;
+
+    public ReminderDispatcher(NotificationService notificationService,
+                              MeterRegistry meterRegistry,
+                              @Value("${notification.reminder.parallelism:8}") int parallelism,
+                              @Value("${notification.reminder.rate-per-second:10}") double ratePerSecond) {
+        this.notificationService = notificationService;
+        this.executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("reminder-"));
+        this.rateLimiter = new TokenBucketRateLimiter(ratePerSecond, Math.max(1, (int) ratePerSecond));
+        this.maxInFlight = parallelism * 2;
+        this.sentCounter = Counter.builder("booking.reminders")
+                .description("Напоминания о бронировании")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("booking.reminders")
+                .description("Напоминания о бронировании")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("booking.reminders.run")
+                .description("Длительность запуска рассылки напоминаний")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Отправка напоминаний по потоку бронирований. Число задач в очереди ограничено,
+     * поэтому бронирования читаются из БД по мере отправки, а не целиком. В пул передаются
+     * только неизменяемые проекции, не связанные с сессией Hibernate.
+     * Метод возвращается после обработки всех бронирований.
+     */
+    public RunResult dispatch(Stream<BookingReminder> reminders) {
+        return dispatch(reminders, reminder -> {
+        });
+    }
+
+    /**
+     * Отправка напоминаний с уведомлением о каждой неудачной отправке.
+     * Обработчик может вызываться из потоков пула и HTTP-клиента.
+     */
+    public RunResult dispatch(Stream<BookingReminder> reminders, Consumer<BookingReminder> onFailure) {
+        long started = System.nanoTime();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        reminders.forEach(reminder -> {
+            inFlight.acquireUninterruptibly();
+            executor.execute(() -> {
+                try {
+                    rateLimiter.acquire();
+                    // Поток пула занят только ожиданием квоты, ответ шлюза приходит асинхронно
+                    notificationService.sendBookingReminderSms(reminder).whenComplete((delivered, e) -> {
+                        if (e == null && Boolean.TRUE.equals(delivered)) {
+                            sent.incrementAndGet();
+                            sentCounter.increment();
+                        } else {
+                            failed.incrementAndGet();
+                            failedCounter.increment();
+                            onFailure.accept(reminder);
+                        }
+                        inFlight.release();
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.incrementAndGet();
+                    failedCounter.increment();
+                    onFailure.accept(reminder);
+                    inFlight.release();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    failedCounter.increment();
+                    onFailure.accept(reminder);
+                    inFlight.release();
+                    throw e;
+                }
+            });
+        });
+
+        // Дожидаемся завершения всех отправленных задач
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - started);
+        runTimer.record(duration);
+        RunResult result = new RunResult(sent.get(), failed.get(), duration);
+        log.info("Рассылка напоминаний завершена: отправлено {}, ошибок {}, длительность {} мс",
+                result.sent(), result.failed(), duration.toMillis());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    public record RunResult(int sent, int failed, Duration duration) {
+    }
+}
@@ -0,0 +1,292 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.BookingReminder;
+import de.restaurant_booking_app.model.BookingStatus;
+import de.restaurant_booking_app.repository.BookingRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Планировщик напоминаний на основе хешированного колеса таймеров.
+ * <p>
+ * Напоминание отправляется за {@code notification.reminder.offset} до начала бронирования.
+ * В памяти хранятся только сроки в пределах горизонта {@code notification.reminder.horizon};
+ * следующие окна подгружаются из БД по мере продвижения времени, а создание, изменение
+ * и отмена бронирований обновляют колесо напрямую. Все операции с корзинами выполняет
+ * единственный поток колеса, остальные потоки передают ему задания через очередь.
+ * <p>
+ * Если срок напоминания уже прошел, а бронирование еще не началось (поздняя бронь или простой
+ * приложения), напоминание отправляется сразу; при запуске окно загружается с {@code now - offset}.
+ * Перед отправкой напоминание захватывается флагом {@code reminder_sent} в БД, поэтому после
+ * перезапуска и при нескольких экземплярах оно не повторяется. Если отправка не удалась, флаг
+ * снимается и попытка повторяется через {@code notification.reminder.retry-delay}, пока
+ * бронирование не началось. Отправка выполняется отдельным потоком, чтобы ожидание SMS-шлюза
+ * не задерживало тики колеса.
+ */
+@Component
+@Slf4j
+public class ReminderScheduler {
+
+    private final BookingRepository bookingRepository;
+    private final ReminderDispatcher reminderDispatcher;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+    private final Duration offset;
+    private final Duration horizon;
+    private final Duration retryDelay;
+    private final long tickMillis;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<Long, Timeout> timeouts = new ConcurrentHashMap<>();
+    private final ExecutorService fireExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("reminder-fire-"));
+
+    private final long startMillis = System.currentTimeMillis();
+    private long tick;
+    private volatile LocalDateTime loadedUntil;
+    private volatile boolean running;
+    private Thread worker;
+
+    @SuppressWarnings("unchecked")
+    public ReminderScheduler(BookingRepository bookingRepository,
+                             ReminderDispatcher reminderDispatcher,
+                             @Value("${notification.reminder.offset:PT3H}") Duration offset,
+                             @Value("${notification.reminder.horizon:PT6H}") Duration horizon,
+                             @Value("${notification.reminder.retry-delay:PT5M}") Duration retryDelay,
+                             @Value("${notification.reminder.tick:PT1M}") Duration tick,
+                             @Value("${notification.reminder.wheel-size:512}") int wheelSize) {
+        this.bookingRepository = bookingRepository;
+        this.reminderDispatcher = reminderDispatcher;
+        this.offset = offset;
+        this.horizon = horizon;
+        this.retryDelay = retryDelay;
+        this.tickMillis = tick.toMillis();
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Напоминания, срок которых наступил во время простоя, отправляются при первой загрузке
+        loadedUntil = LocalDateTime.now().minus(offset);
+        loadWindowIfNeeded();
+        running = true;
+        worker = new Thread(this::run, "reminder-wheel");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Планировщик напоминаний запущен: за {} до начала, горизонт {}", offset, horizon);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        fireExecutor.shutdown();
+        if (!fireExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+            fireExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Постановка (или перенос) напоминания для бронирования
+     */
+    public void schedule(Long bookingId, LocalDateTime startTime) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime reminderTime = startTime.minus(offset);
+        if (reminderTime.isBefore(now)) {
+            cancel(bookingId);
+            if (startTime.isAfter(now)) {
+                // Срок прошел, но бронирование еще впереди — напоминаем сразу
+                submit(List.of(bookingId));
+            }
+            return;
+        }
+        LocalDateTime until = loadedUntil;
+        if (until == null || !reminderTime.isBefore(until)) {
+            // Дальние сроки будут загружены вместе со своим окном
+            cancel(bookingId);
+            return;
+        }
+        enqueue(bookingId, reminderTime.atZone(zoneId).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Отмена напоминания для бронирования
+     */
+    public void cancel(Long bookingId) {
+        Timeout previous = timeouts.remove(bookingId);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+    }
+
+    private void enqueue(Long bookingId, long deadline) {
+        Timeout timeout = new Timeout(bookingId, deadline);
+        Timeout previous = timeouts.put(bookingId, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        pending.add(timeout);
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = startMillis + (tick + 1) * tickMillis;
+            long sleepMillis = tickDeadline - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        break;
+                    }
+                    continue;
+                }
+            }
+            try {
+                loadWindowIfNeeded();
+                transferPending();
+                List<Long> expired = expireBucket(tickDeadline);
+                tick++;
+                if (!expired.isEmpty()) {
+                    submit(expired);
+                }
+            } catch (Exception e) {
+                log.error("Ошибка в планировщике напоминаний: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Подгрузка следующего окна сроков, когда текущее подходит к концу
+     */
+    private void loadWindowIfNeeded() {
+        LocalDateTime now = LocalDateTime.now();
+        while (!now.plus(horizon).isBefore(loadedUntil)) {
+            LocalDateTime from = loadedUntil;
+            LocalDateTime to = from.plus(horizon);
+            loadedUntil = to;
+            List<Object[]> rows = bookingRepository.findConfirmedStartTimes(from.plus(offset), to.plus(offset));
+            for (Object[] row : rows) {
+                schedule((Long) row[0], (LocalDateTime) row[1]);
+            }
+            log.debug("Загружено {} напоминаний на период с {} по {}", rows.size(), from, to);
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long calculated = (timeout.deadline - startMillis) / tickMillis;
+            timeout.remainingRounds = Math.max(0, (calculated - tick) / wheel.length);
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    private List<Long> expireBucket(long tickDeadline) {
+        List<Long> expired = new ArrayList<>();
+        Iterator<Timeout> iterator = wheel[(int) (tick & mask)].iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+                iterator.remove();
+                if (timeouts.remove(timeout.bookingId, timeout)) {
+                    expired.add(timeout.bookingId);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+        return expired;
+    }
+
+    private void submit(List<Long> bookingIds) {
+        try {
+            fireExecutor.execute(() -> fire(bookingIds));
+        } catch (RejectedExecutionException e) {
+            log.warn("Планировщик остановлен, {} напоминаний будут отправлены после перезапуска", bookingIds.size());
+        }
+    }
+
+    private void fire(List<Long> bookingIds) {
+        List<Long> claimed = List.of();
+        try {
+            claimed = bookingIds.stream()
+                    .filter(bookingId -> bookingRepository.markReminderSent(bookingId) == 1)
+                    .toList();
+            if (claimed.isEmpty()) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            // Повторная попытка могла наступить уже после начала бронирования
+            List<BookingReminder> reminders = bookingRepository.findRemindersByIds(claimed, BookingStatus.CONFIRMED)
+                    .stream()
+                    .filter(reminder -> reminder.getStartTime().isAfter(now))
+                    .toList();
+            log.debug("Срок напоминания наступил для {} бронирований", reminders.size());
+            Queue<BookingReminder> failed = new ConcurrentLinkedQueue<>();
+            reminderDispatcher.dispatch(reminders.stream(), failed::add);
+            failed.forEach(reminder -> retry(reminder.getId()));
+        } catch (Exception e) {
+            log.error("Ошибка при отправке напоминаний: {}", e.getMessage(), e);
+            claimed.forEach(this::retry);
+        }
+    }
+
+    /**
+     * Снятие захвата и повторная постановка напоминания, которое не удалось отправить
+     */
+    private void retry(Long bookingId) {
+        try {
+            if (bookingRepository.resetReminderSent(bookingId) == 1) {
+                enqueue(bookingId, System.currentTimeMillis() + retryDelay.toMillis());
+                log.warn("Напоминание для бронирования {} не отправлено, повтор через {}", bookingId, retryDelay);
+            }
+        } catch (Exception e) {
+            log.error("Не удалось вернуть напоминание для бронирования {}: {}", bookingId, e.getMessage(), e);
+        }
+    }
+
+    private static final class Timeout {
+        private final long bookingId;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(long bookingId, long deadline) {
+            this.bookingId = bookingId;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package de.restaurant_booking_app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул открытых SMTP-соединений.
+ * <p>
+ * JavaMailSender на каждый вызов {@code send} открывает новое соединение с STARTTLS и
+ * аутентификацией. Пул держит до {@code mail.smtp.pool.size} уже аутентифицированных
+ * соединений и отдает их отправителям; соединение, простаивавшее дольше
+ * {@code mail.smtp.pool.validate-after}, перед использованием проверяется командой NOOP,
+ * а простаивающие дольше {@code mail.smtp.pool.max-idle} закрываются.
+ * Переподключение выполняется только при ошибке соединения, письмо при этом отправляется повторно один раз.
+ * Пакетная отправка не прерывается исключением: результат возвращается для каждого письма.
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool {
+
+    private final JavaMailSender mailSender;
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final long validateAfterNanos;
+    private final long maxIdleNanos;
+    private final long acquireTimeoutMillis;
+    private final Counter connects;
+    private final Counter reconnects;
+    private volatile boolean closed;
+
+    public SmtpTransportPool(JavaMailSender mailSender,
+                             MeterRegistry meterRegistry,
+                             @Value("${mail.smtp.pool.size:4}") int size,
+                             @Value("${mail.smtp.pool.validate-after:PT10S}") Duration validateAfter,
+                             @Value("${mail.smtp.pool.max-idle:PT2M}") Duration maxIdle,
+                             @Value("${mail.smtp.pool.acquire-timeout-ms:30000}") long acquireTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.permits = new Semaphore(Math.max(1, size));
+        this.validateAfterNanos = validateAfter.toNanos();
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.connects = Counter.builder("email.smtp.connections")
+                .description("Открытия SMTP-соединений")
+                .tag("reason", "new")
+                .register(meterRegistry);
+        this.reconnects = Counter.builder("email.smtp.connections")
+                .description("Открытия SMTP-соединений")
+                .tag("reason", "reconnect")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Отправка одного письма через соединение из пула
+     */
+    public void send(MimeMessage message) throws MessagingException {
+        Delivery delivery = sendAll(List.of(message)).get(0);
+        if (!delivery.isSent()) {
+            throw delivery.error();
+        }
+    }
+
+    /**
+     * Отправка пакета писем через одно соединение. Результаты возвращаются в порядке писем:
+     * письмо, получателей которого отклонил сервер, помечается ошибкой, а остальные отправляются.
+     * Если соединение не удалось открыть или восстановить, ошибкой помечаются все неотправленные письма.
+     */
+    public List<Delivery> sendAll(List<MimeMessage> messages) {
+        List<Delivery> results = new ArrayList<>(messages.size());
+        if (!(mailSender instanceof JavaMailSenderImpl sender)) {
+            // Нестандартный отправитель (например, в тестах) — письма отправляются по одному
+            for (MimeMessage message : messages) {
+                try {
+                    mailSender.send(message);
+                    results.add(new Delivery(message, null));
+                } catch (MailException e) {
+                    results.add(new Delivery(message, new MessagingException(e.getMessage(), e)));
+                }
+            }
+            return results;
+        }
+        try {
+            acquirePermit();
+        } catch (MessagingException e) {
+            failRemaining(messages, results, e);
+            return results;
+        }
+        PooledTransport pooled = null;
+        boolean healthy = false;
+        try {
+            pooled = borrow(sender);
+            for (MimeMessage message : messages) {
+                try {
+                    deliver(sender, pooled, message);
+                    results.add(new Delivery(message, null));
+                } catch (SendFailedException e) {
+                    log.warn("Сервер отклонил письмо: {}", e.getMessage());
+                    results.add(new Delivery(message, e));
+                }
+            }
+            healthy = true;
+        } catch (MessagingException e) {
+            log.error("SMTP-соединение недоступно, не отправлено {} писем: {}",
+                    messages.size() - results.size(), e.getMessage());
+            failRemaining(messages, results, e);
+        } finally {
+            release(pooled, healthy);
+            permits.release();
+        }
+        return results;
+    }
+
+    /**
+     * Закрытие соединений, простаивающих дольше допустимого
+     */
+    @Scheduled(fixedDelayString = "${mail.smtp.pool.evict-ms:30000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        Iterator<PooledTransport> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            PooledTransport pooled = iterator.next();
+            if (now - pooled.lastUsed > maxIdleNanos && idle.remove(pooled)) {
+                pooled.close();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.close();
+        }
+    }
+
+    private void deliver(JavaMailSenderImpl sender, PooledTransport pooled, MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        message.saveChanges();
+        try {
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            // Ошибка получателей при исправном соединении — отказ для этого письма.
+            // Обрыв соединения провайдер тоже может сообщить как SendFailedException, поэтому соединение проверяется
+            if (e instanceof SendFailedException && pooled.transport.isConnected()) {
+                pooled.lastUsed = System.nanoTime();
+                throw e;
+            }
+            log.warn("Ошибка SMTP-соединения, переподключение: {}", e.getMessage());
+            pooled.close();
+            pooled.transport = connect(sender);
+            reconnects.increment();
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+        }
+        pooled.lastUsed = System.nanoTime();
+    }
+
+    private static void failRemaining(List<MimeMessage> messages, List<Delivery> results, MessagingException error) {
+        for (int i = results.size(); i < messages.size(); i++) {
+            results.add(new Delivery(messages.get(i), error));
+        }
+    }
+
+    /**
+     * Последнее возвращенное соединение берется первым: оно с наибольшей вероятностью еще открыто
+     */
+    private PooledTransport borrow(JavaMailSenderImpl sender) throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            long idleNanos = System.nanoTime() - pooled.lastUsed;
+            if (idleNanos > maxIdleNanos || (idleNanos > validateAfterNanos && !pooled.transport.isConnected())) {
+                pooled.close();
+                continue;
+            }
+            return pooled;
+        }
+        PooledTransport created = new PooledTransport(connect(sender));
+        connects.increment();
+        return created;
+    }
+
+    private void release(PooledTransport pooled, boolean healthy) {
+        if (pooled == null) {
+            return;
+        }
+        if (healthy && !closed) {
+            idle.offerFirst(pooled);
+        } else {
+            pooled.close();
+        }
+    }
+
+    private Transport connect(JavaMailSenderImpl sender) throws MessagingException {
+        Transport transport = sender.getSession().getTransport(sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+        String username = sender.getUsername();
+        String password = sender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        transport.connect(sender.getHost(), sender.getPort(), username, password);
+        log.debug("Открыто SMTP-соединение с {}:{}", sender.getHost(), sender.getPort());
+        return transport;
+    }
+
+    private void acquirePermit() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Нет свободного SMTP-соединения в пуле");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Ожидание SMTP-соединения прервано", e);
+        }
+    }
+
+    /**
+     * Результат отправки письма: {@code error} пуст, если сервер принял письмо
+     */
+    public record Delivery(MimeMessage message, MessagingException error) {
+
+        public boolean isSent() {
+            return error == null;
+        }
+    }
+
+    private static final class PooledTransport {
+
+        private Transport transport;
+        private volatile long lastUsed = System.nanoTime();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        private void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Ошибка при закрытии SMTP-соединения: {}", e.getMessage());
+            }
+        }
+    }
+}
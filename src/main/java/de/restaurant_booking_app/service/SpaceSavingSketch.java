@@ -0,0 +1,80 @@
+package de.restaurant_booking_app.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Алгоритм Space-Saving для поиска самых частых элементов потока.
+ * <p>
+ * Хранит не более {@code capacity} счетчиков. Новый элемент при заполненной структуре
+ * вытесняет счетчик с минимальным значением и наследует его (погрешность — в {@code error}).
+ * Любой элемент с реальной частотой выше N / capacity гарантированно присутствует в ответе.
+ * Не потокобезопасен.
+ */
+public final class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(
+            Comparator.comparingLong(Counter::count).thenComparingLong(Counter::item));
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость должна быть положительной");
+        }
+        this.capacity = capacity;
+    }
+
+    public void offer(long item, long increment) {
+        Counter current = counters.get(item);
+        if (current != null) {
+            byCount.remove(current);
+            put(new Counter(item, current.count() + increment, current.error()));
+        } else if (counters.size() < capacity) {
+            put(new Counter(item, increment, 0));
+        } else {
+            Counter min = byCount.pollFirst();
+            counters.remove(min.item());
+            put(new Counter(item, min.count() + increment, min.count()));
+        }
+    }
+
+    /**
+     * Первые {@code k} счетчиков по убыванию значения, за O(k)
+     */
+    public List<Counter> top(int k) {
+        List<Counter> result = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter> iterator = byCount.descendingIterator();
+        while (iterator.hasNext() && result.size() < k) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    public Collection<Counter> counters() {
+        return Collections.unmodifiableCollection(counters.values());
+    }
+
+    public void clear() {
+        counters.clear();
+        byCount.clear();
+    }
+
+    private void put(Counter counter) {
+        counters.put(counter.item(), counter);
+        byCount.add(counter);
+    }
+
+    /**
+     * Счетчик элемента: оценка частоты сверху и максимальная погрешность этой оценки
+     */
+    public record Counter(long item, long count, long error) {
+    }
+}
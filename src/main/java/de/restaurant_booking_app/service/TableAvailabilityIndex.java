@@ -0,0 +1,199 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Битовая карта занятости столиков в памяти.
+ * <p>
+ * Для каждой пары (столик, день) хранится {@link AtomicLongArray}, где один бит — это
+ * слот длиной {@value #SLOT_MINUTES} минут. Бронирование [start, end] занимает слоты
+ * от slot(start) до slot(end) включительно.
+ * <p>
+ * Карта служит только для быстрого отказа: если занят хотя бы один внутренний (не граничный)
+ * слот интервала, пересечение с бронированием этого экземпляра точно есть. Свободные слоты
+ * ничего не гарантируют — бронирования других экземпляров, генератора данных и прямые записи
+ * в БД карта не видит, поэтому окончательная проверка всегда выполняется запросом к БД.
+ * Загруженный день перечитывается из БД по истечении {@code booking.availability.ttl},
+ * чтобы отмены, сделанные в обход этого экземпляра, не приводили к ложным отказам.
+ */
+@Component
+@Slf4j
+public class TableAvailabilityIndex {
+
+    static final int SLOT_MINUTES = 5;
+    static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final int WORDS_PER_DAY = (SLOTS_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+    private final BookingRepository bookingRepository;
+    private final long ttlNanos;
+    private final ConcurrentMap<DayKey, DayBits> days = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public TableAvailabilityIndex(BookingRepository bookingRepository,
+                                  @Value("${booking.availability.ttl:PT1M}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Перестроение карты из БД при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        days.clear();
+        List<Object[]> intervals = bookingRepository.findConfirmedIntervalsEndingAfter(LocalDate.now().atStartOfDay());
+        for (Object[] row : intervals) {
+            Long tableId = (Long) row[0];
+            for (SlotMask mask : masks(tableId, (LocalDateTime) row[1], (LocalDateTime) row[2], true)) {
+                mask.bits().getAndUpdate(mask.word(), value -> value | mask.mask());
+            }
+        }
+        log.info("Карта занятости столиков построена: {} бронирований, {} дней", intervals.size(), days.size());
+    }
+
+    /**
+     * Быстрая проверка пересечения: true, если занят хотя бы один внутренний слот интервала.
+     * Граничные слоты не учитываются, так как их может делить соседнее бронирование без пересечения.
+     * false не означает, что столик свободен.
+     */
+    public boolean isOccupied(Long tableId, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime interiorStart = slotStart(startTime).plusMinutes(SLOT_MINUTES);
+        LocalDateTime interiorEnd = slotStart(endTime).minusMinutes(1);
+        if (interiorEnd.isBefore(interiorStart)) {
+            return false;
+        }
+        for (SlotMask mask : masks(tableId, interiorStart, interiorEnd, false)) {
+            if ((mask.bits().get(mask.word()) & mask.mask()) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Отметка слотов как занятых после того, как БД подтвердила отсутствие пересечения
+     */
+    public void markBusy(Long tableId, LocalDateTime startTime, LocalDateTime endTime) {
+        for (SlotMask mask : masks(tableId, startTime, endTime, false)) {
+            mask.bits().getAndUpdate(mask.word(), value -> value | mask.mask());
+        }
+    }
+
+    /**
+     * Сброс дней интервала: при следующем обращении они будут загружены из БД заново.
+     * Используется при отмене, изменении и откате бронирования, так как граничные
+     * слоты могут принадлежать нескольким бронированиям.
+     */
+    public void invalidate(Long tableId, LocalDateTime startTime, LocalDateTime endTime) {
+        invalidations.incrementAndGet();
+        for (LocalDate day = startTime.toLocalDate(); !day.isAfter(endTime.toLocalDate()); day = day.plusDays(1)) {
+            days.remove(new DayKey(tableId, day));
+        }
+    }
+
+    /**
+     * Удаление из памяти дней, предшествующих указанной дате
+     */
+    public void evictBefore(LocalDate day) {
+        days.keySet().removeIf(key -> key.day().isBefore(day));
+    }
+
+    private List<SlotMask> masks(Long tableId, LocalDateTime startTime, LocalDateTime endTime, boolean skipLoad) {
+        List<SlotMask> result = new ArrayList<>();
+        LocalDate firstDay = startTime.toLocalDate();
+        LocalDate lastDay = endTime.toLocalDate();
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            int firstSlot = day.equals(firstDay) ? slotOf(startTime.toLocalTime()) : 0;
+            int lastSlot = day.equals(lastDay) ? slotOf(endTime.toLocalTime()) : SLOTS_PER_DAY - 1;
+            DayKey key = new DayKey(tableId, day);
+            AtomicLongArray bits = skipLoad
+                    ? days.computeIfAbsent(key, k -> new DayBits(new AtomicLongArray(WORDS_PER_DAY), System.nanoTime())).bits()
+                    : bitsFor(key);
+            for (int word = firstSlot / Long.SIZE; word <= lastSlot / Long.SIZE; word++) {
+                int from = Math.max(firstSlot, word * Long.SIZE) - word * Long.SIZE;
+                int to = Math.min(lastSlot, word * Long.SIZE + Long.SIZE - 1) - word * Long.SIZE;
+                long upper = to == Long.SIZE - 1 ? -1L : (1L << (to + 1)) - 1;
+                result.add(new SlotMask(bits, word, upper & (-1L << from)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Карта дня из памяти или из БД. Чтение из БД выполняется вне операций над картой дней,
+     * чтобы не держать блокировку сегмента ConcurrentHashMap на время запроса.
+     */
+    private AtomicLongArray bitsFor(DayKey key) {
+        DayBits cached = days.get(key);
+        if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+            return cached.bits();
+        }
+
+        long version = invalidations.get();
+        DayBits loaded = new DayBits(load(key), System.nanoTime());
+        if (invalidations.get() != version) {
+            // За время чтения день могли изменить, результат используется только для этой проверки
+            return loaded.bits();
+        }
+        boolean stored = cached == null
+                ? days.putIfAbsent(key, loaded) == null
+                : days.replace(key, cached, loaded);
+        if (stored) {
+            return loaded.bits();
+        }
+        DayBits current = days.get(key);
+        return current != null ? current.bits() : loaded.bits();
+    }
+
+    private AtomicLongArray load(DayKey key) {
+        long[] bits = new long[WORDS_PER_DAY];
+        LocalDateTime dayStart = key.day().atStartOfDay();
+        LocalDateTime dayEnd = key.day().atTime(LocalTime.MAX);
+        for (Object[] row : bookingRepository.findConfirmedIntervals(key.tableId(), dayStart, dayEnd)) {
+            LocalDateTime start = (LocalDateTime) row[0];
+            LocalDateTime end = (LocalDateTime) row[1];
+            int firstSlot = start.isBefore(dayStart) ? 0 : slotOf(start.toLocalTime());
+            int lastSlot = end.isAfter(dayEnd) ? SLOTS_PER_DAY - 1 : slotOf(end.toLocalTime());
+            for (int slot = firstSlot; slot <= lastSlot; slot++) {
+                bits[slot / Long.SIZE] |= 1L << (slot % Long.SIZE);
+            }
+        }
+        log.debug("Загружена карта занятости столика {} на {}", key.tableId(), key.day());
+        return new AtomicLongArray(bits);
+    }
+
+    private static LocalDateTime slotStart(LocalDateTime time) {
+        LocalDateTime minutes = time.truncatedTo(ChronoUnit.MINUTES);
+        return minutes.minusMinutes(minutes.getMinute() % SLOT_MINUTES);
+    }
+
+    private static int slotOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    private record DayKey(Long tableId, LocalDate day) {
+    }
+
+    private record DayBits(AtomicLongArray bits, long loadedAt) {
+    }
+
+    private record SlotMask(AtomicLongArray bits, int word, long mask) {
+    }
+}
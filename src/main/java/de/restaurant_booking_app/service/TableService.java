@@ -3,10 +3,14 @@ package de.restaurant_booking_app.service;
 import de.restaurant_booking_app.exception.ResourceNotFoundException;
 import de.restaurant_booking_app.model.BookingTable;
 import de.restaurant_booking_app.repository.BookingTableRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -15,25 +19,55 @@ import java.util.List;
 public class TableService {
 
     private final BookingTableRepository bookingTableRepository;
+    private final Counter snapshotHits;
+    private final Counter snapshotMisses;
+
+    // Текущий снимок схемы зала; null — снимок еще не загружен
+    private volatile TableSnapshot snapshot;
+    private long snapshotVersion;
 
     @Autowired
-    public TableService(BookingTableRepository bookingTableRepository) {
+    public TableService(BookingTableRepository bookingTableRepository, MeterRegistry meterRegistry) {
         this.bookingTableRepository = bookingTableRepository;
+        this.snapshotHits = Counter.builder("tables.snapshot.requests")
+                .description("Обращения к снимку столиков")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.snapshotMisses = Counter.builder("tables.snapshot.requests")
+                .description("Обращения к снимку столиков")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Текущий неизменяемый снимок столиков (загружается из БД при первом обращении)
+     */
+    public TableSnapshot getSnapshot() {
+        TableSnapshot current = snapshot;
+        if (current != null) {
+            snapshotHits.increment();
+            return current;
+        }
+        snapshotMisses.increment();
+        return refreshSnapshot();
     }
 
     /**
      * Получение всех столиков
      */
     public List<BookingTable> getAllTables() {
-        return bookingTableRepository.findAll();
+        return getSnapshot().all();
     }
 
     /**
      * Получение столика по ID
      */
     public BookingTable getTableById(Long id) {
-        return bookingTableRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Столик с ID " + id + " не найден"));
+        BookingTable table = getSnapshot().byId(id);
+        if (table == null) {
+            throw new ResourceNotFoundException("Столик с ID " + id + " не найден");
+        }
+        return table;
     }
 
     /**
@@ -48,14 +82,14 @@ public class TableService {
      * Получение VIP столиков
      */
     public List<BookingTable> getVipTables() {
-        return bookingTableRepository.findByIsVip(true);
+        return getSnapshot().vip();
     }
 
     /**
      * Получение столиков с минимальной вместимостью
      */
     public List<BookingTable> getTablesByMinCapacity(Integer capacity) {
-        return bookingTableRepository.findByCapacityGreaterThanEqualOrderByCapacityAsc(capacity);
+        return getSnapshot().withMinCapacity(capacity);
     }
 
     /**
@@ -69,7 +103,9 @@ public class TableService {
         });
 
         log.debug("Создание нового столика с номером: {}", table.getTableNumber());
-        return bookingTableRepository.save(table);
+        BookingTable savedTable = bookingTableRepository.save(table);
+        refreshSnapshotAfterCommit();
+        return savedTable;
     }
 
     /**
@@ -77,7 +113,7 @@ public class TableService {
      */
     @Transactional
     public BookingTable updateTable(Long id, BookingTable tableDetails) {
-        BookingTable table = getTableById(id);
+        BookingTable table = findManagedTable(id);
 
         // Проверяем, что новый номер столика уникален (если он изменен)
         if (!table.getTableNumber().equals(tableDetails.getTableNumber())) {
@@ -92,7 +128,9 @@ public class TableService {
         table.setIsVip(tableDetails.getIsVip());
 
         log.debug("Обновление столика с ID: {}", id);
-        return bookingTableRepository.save(table);
+        BookingTable savedTable = bookingTableRepository.save(table);
+        refreshSnapshotAfterCommit();
+        return savedTable;
     }
 
     /**
@@ -100,8 +138,38 @@ public class TableService {
      */
     @Transactional
     public void deleteTable(Long id) {
-        BookingTable table = getTableById(id);
+        BookingTable table = findManagedTable(id);
         log.debug("Удаление столика с ID: {}", id);
         bookingTableRepository.delete(table);
+        refreshSnapshotAfterCommit();
+    }
+
+    private BookingTable findManagedTable(Long id) {
+        return bookingTableRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Столик с ID " + id + " не найден"));
+    }
+
+    /**
+     * Перечитывание столиков из БД и атомарная замена снимка.
+     * Выполняется последовательно, поэтому последним устанавливается самый свежий снимок.
+     */
+    private synchronized TableSnapshot refreshSnapshot() {
+        TableSnapshot refreshed = new TableSnapshot(++snapshotVersion, bookingTableRepository.findAll());
+        snapshot = refreshed;
+        log.debug("Снимок столиков обновлен: версия {}, {} столиков", refreshed.getVersion(), refreshed.size());
+        return refreshed;
+    }
+
+    private void refreshSnapshotAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshSnapshot();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshSnapshot();
+            }
+        });
     }
 }
@@ -0,0 +1,100 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.BookingTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Неизменяемый снимок схемы зала.
+ * <p>
+ * Хранит копии столиков, упорядоченные по id, массив, отсортированный по вместимости
+ * (для двоичного поиска), индекс по id и список VIP-столиков. При любом изменении столиков
+ * снимок не модифицируется, а заменяется новым (copy-on-write). Наружу отдаются копии
+ * столиков, поэтому изменение результата не меняет снимок, общий для всех потоков.
+ */
+public final class TableSnapshot {
+
+    private final long version;
+    private final List<BookingTable> all;
+    private final BookingTable[] byCapacity;
+    private final Map<Long, BookingTable> byId;
+    private final List<BookingTable> vip;
+
+    TableSnapshot(long version, List<BookingTable> tables) {
+        this.version = version;
+        List<BookingTable> copies = tables.stream()
+                .map(TableSnapshot::copyOf)
+                .sorted(Comparator.comparing(BookingTable::getId))
+                .collect(Collectors.toList());
+        this.all = Collections.unmodifiableList(copies);
+        this.byCapacity = copies.stream()
+                .sorted(Comparator.comparing(BookingTable::getCapacity).thenComparing(BookingTable::getTableNumber))
+                .toArray(BookingTable[]::new);
+        Map<Long, BookingTable> index = new LinkedHashMap<>();
+        copies.forEach(table -> index.put(table.getId(), table));
+        this.byId = Collections.unmodifiableMap(index);
+        this.vip = copies.stream()
+                .filter(table -> Boolean.TRUE.equals(table.getIsVip()))
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<BookingTable> all() {
+        return copiesOf(all);
+    }
+
+    public List<BookingTable> vip() {
+        return copiesOf(vip);
+    }
+
+    public BookingTable byId(Long id) {
+        BookingTable table = byId.get(id);
+        return table != null ? copyOf(table) : null;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * Столики с вместимостью не меньше заданной, по возрастанию вместимости
+     */
+    public List<BookingTable> withMinCapacity(int capacity) {
+        int low = 0;
+        int high = byCapacity.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (byCapacity[mid].getCapacity() < capacity) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return copiesOf(Arrays.asList(byCapacity).subList(low, byCapacity.length));
+    }
+
+    private static List<BookingTable> copiesOf(List<BookingTable> tables) {
+        List<BookingTable> copies = new ArrayList<>(tables.size());
+        tables.forEach(table -> copies.add(copyOf(table)));
+        return copies;
+    }
+
+    private static BookingTable copyOf(BookingTable table) {
+        return BookingTable.builder()
+                .id(table.getId())
+                .tableNumber(table.getTableNumber())
+                .capacity(table.getCapacity())
+                .isVip(table.getIsVip())
+                .build();
+    }
+}
@@ -0,0 +1,51 @@
+package de.restaurant_booking_app.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Простой потокобезопасный ограничитель скорости по алгоритму token bucket.
+ * Ведро вмещает {@code capacity} токенов и пополняется со скоростью {@code permitsPerSecond}.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int capacity) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Скорость и емкость ограничителя должны быть положительными");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Получение одного токена с ожиданием, если ведро пусто
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = tryAcquire()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Попытка получить токен без ожидания
+     *
+     * @return 0, если токен получен, иначе время до появления токена в наносекундах
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+}
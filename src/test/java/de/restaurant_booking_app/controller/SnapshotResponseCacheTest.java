@@ -0,0 +1,26 @@
+package de.restaurant_booking_app.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotResponseCacheTest {
+
+    @Test
+    @DisplayName("gzip выбирается по кодировкам Accept-Encoding с учетом q")
+    void acceptsGzipHonorsQuality() {
+        // Проверка
+        assertTrue(SnapshotResponseCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(SnapshotResponseCache.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(SnapshotResponseCache.acceptsGzip("x-gzip"));
+        assertTrue(SnapshotResponseCache.acceptsGzip("*"));
+        assertFalse(SnapshotResponseCache.acceptsGzip("gzip;q=0"));
+        assertFalse(SnapshotResponseCache.acceptsGzip("gzip; q=0.000, identity"));
+        assertFalse(SnapshotResponseCache.acceptsGzip("*;q=1, gzip;q=0"));
+        assertFalse(SnapshotResponseCache.acceptsGzip("*;q=0"));
+        assertFalse(SnapshotResponseCache.acceptsGzip("gzipped, deflate"));
+        assertFalse(SnapshotResponseCache.acceptsGzip(""));
+        assertFalse(SnapshotResponseCache.acceptsGzip(null));
+    }
+}
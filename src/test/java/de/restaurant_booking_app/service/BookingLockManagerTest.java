@@ -0,0 +1,184 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.exception.BookingConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingLockManagerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingLockManager lockManager;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lockManager = new BookingLockManager(meterRegistry, 4, 100);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Полосы освобождаются после коммита транзакции")
+    void stripesReleasedAfterCommit() throws Exception {
+        // Подготовка
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Выполнение
+        lockManager.lockUntilCompletion(stripes(1, 2));
+
+        // Проверка
+        assertTrue(isLockedElsewhere(1));
+        assertTrue(isLockedElsewhere(2));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertFalse(isLockedElsewhere(1));
+        assertFalse(isLockedElsewhere(2));
+    }
+
+    @Test
+    @DisplayName("Полосы освобождаются после отката транзакции")
+    void stripesReleasedAfterRollback() throws Exception {
+        // Подготовка
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Выполнение
+        lockManager.lockUntilCompletion(stripes(1, 2));
+
+        // Проверка
+        assertTrue(isLockedElsewhere(1));
+        assertTrue(isLockedElsewhere(2));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertFalse(isLockedElsewhere(1));
+        assertFalse(isLockedElsewhere(2));
+    }
+
+    @Test
+    @DisplayName("Полосы захватываются по возрастанию номеров")
+    void stripesAcquiredInAscendingOrder() throws Exception {
+        // Подготовка
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdStripe(3, release);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Выполнение
+        assertThrows(BookingConflictException.class, () -> lockManager.lockUntilCompletion(stripes(3, 1)));
+
+        // Проверка: младшая полоса уже захвачена, хотя старшая занята другим потоком
+        assertTrue(isLockedElsewhere(1));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertFalse(isLockedElsewhere(1));
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Превышение ожидания блокировки приводит к BookingConflictException и учитывается в метриках")
+    void lockTimeoutThrowsAndCountsContention() throws Exception {
+        // Подготовка
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdStripe(2, release);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Выполнение
+        assertThrows(BookingConflictException.class, () -> lockManager.lockUntilCompletion(stripes(2)));
+
+        // Проверка
+        assertEquals(1.0, meterRegistry.get("booking.lock.contention").tag("stripe", "2").counter().count());
+        assertEquals(0.0, meterRegistry.get("booking.lock.contention").tag("stripe", "1").counter().count());
+        assertEquals(1, meterRegistry.get("booking.lock.wait").timer().count());
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Блокировка вне транзакции запрещена")
+    void lockOutsideTransactionFails() {
+        // Выполнение и проверка
+        assertThrows(IllegalStateException.class, () -> lockManager.lockUntilCompletion(stripes(1)));
+    }
+
+    @Test
+    @DisplayName("Бронирование через полночь занимает полосы обоих дней")
+    void stripesForCoverEveryDay() {
+        // Подготовка
+        LocalDateTime start = LocalDateTime.of(2026, 10, 17, 23, 0);
+
+        // Выполнение
+        SortedSet<Integer> sameDay = lockManager.stripesFor(1L, start.minusHours(2), start);
+        SortedSet<Integer> overnight = lockManager.stripesFor(1L, start, start.plusHours(2));
+
+        // Проверка
+        assertEquals(1, sameDay.size());
+        assertTrue(overnight.containsAll(sameDay));
+        assertTrue(overnight.containsAll(lockManager.stripesFor(1L, start.plusHours(2), start.plusHours(3))));
+    }
+
+    private static SortedSet<Integer> stripes(Integer... indexes) {
+        return new TreeSet<>(List.of(indexes));
+    }
+
+    /**
+     * Захват полосы в отдельной транзакции другого потока до сигнала release
+     */
+    private Future<?> holdStripe(int index, CountDownLatch release) throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            lockManager.lockUntilCompletion(stripes(index));
+            locked.countDown();
+            release.await();
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+            return null;
+        });
+        assertTrue(locked.await(1, TimeUnit.SECONDS));
+        return holder;
+    }
+
+    /**
+     * Попытка захватить полосу из другого потока: true, если она занята
+     */
+    private boolean isLockedElsewhere(int index) throws Exception {
+        return executor.submit(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                lockManager.lockUntilCompletion(stripes(index));
+                return false;
+            } catch (BookingConflictException e) {
+                return true;
+            } finally {
+                complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        }).get(1, TimeUnit.SECONDS);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+}
@@ -0,0 +1,59 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.exception.BookingConflictException;
+import de.restaurant_booking_app.service.BookingMetrics.ConflictSource;
+import de.restaurant_booking_app.service.BookingMetrics.Operation;
+import de.restaurant_booking_app.service.BookingMetrics.Stage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingMetrics bookingMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingMetrics = new BookingMetrics(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Исход операции определяется по типу исключения")
+    void operationOutcomeTagged() {
+        // Действие
+        assertEquals("ok", bookingMetrics.operation(Operation.CREATE, () -> "ok"));
+        assertThrows(BookingConflictException.class, () -> bookingMetrics.operation(Operation.CREATE, () -> {
+            throw new BookingConflictException("занято");
+        }));
+
+        // Проверка
+        assertEquals(1, meterRegistry.get("booking.operation")
+                .tags("operation", "create", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("booking.operation")
+                .tags("operation", "create", "outcome", "conflict").timer().count());
+    }
+
+    @Test
+    @DisplayName("Этапы и конфликты учитываются отдельно по операциям")
+    void stagesAndConflictsCounted() {
+        // Действие
+        bookingMetrics.stage(Operation.UPDATE, Stage.SAVE, () -> { });
+        assertTrue(bookingMetrics.stage(Operation.UPDATE, Stage.CONFLICT_CHECK, () -> true));
+        bookingMetrics.conflict(Operation.UPDATE, ConflictSource.CONSTRAINT);
+
+        // Проверка
+        assertEquals(1, meterRegistry.get("booking.stage")
+                .tags("operation", "update", "stage", "save").timer().count());
+        assertEquals(1, meterRegistry.get("booking.stage")
+                .tags("operation", "update", "stage", "conflict_check").timer().count());
+        assertEquals(0, meterRegistry.get("booking.stage")
+                .tags("operation", "create", "stage", "save").timer().count());
+        assertEquals(1.0, meterRegistry.get("booking.conflicts")
+                .tags("operation", "update", "source", "constraint").counter().count());
+    }
+}
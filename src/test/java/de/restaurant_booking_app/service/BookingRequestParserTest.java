@@ -0,0 +1,80 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.BookingRequest;
+import de.restaurant_booking_app.dto.InboundMail;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingRequestParserTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 5, 20);
+
+    private final BookingRequestParser parser = new BookingRequestParser();
+
+    @Test
+    @DisplayName("Дата, время, количество гостей и контакты из письма на русском")
+    void parsesRussianRequest() {
+        // Подготовка
+        InboundMail mail = InboundMail.builder()
+                .uid(5)
+                .from("Иван Петров <ivan@example.com>")
+                .subject("Бронирование столика")
+                .text("Добрый день!\nХотим столик на 4 человека 25.05 в 19:30.\nТелефон: +7 (999) 123-45-67")
+                .build();
+
+        // Выполнение
+        BookingRequest request = parser.parse(mail, TODAY);
+
+        // Проверка
+        assertEquals(5, request.getMailUid());
+        assertEquals(LocalDate.of(2030, 5, 25), request.getDate());
+        assertEquals(LocalTime.of(19, 30), request.getTime());
+        assertEquals(4, request.getPartySize());
+        assertEquals("ivan@example.com", request.getCustomerEmail());
+        assertEquals("Иван Петров", request.getCustomerName());
+        assertEquals("+7 (999) 123-45-67", request.getCustomerPhone());
+    }
+
+    @Test
+    @DisplayName("Относительная дата, время словами и количество гостей прописью")
+    void parsesRelativeDateAndWords() {
+        // Подготовка
+        InboundMail mail = InboundMail.builder()
+                .from("guest@example.com")
+                .text("Имя: Анна\nСтолик для четверых завтра в 8 вечера")
+                .build();
+
+        // Выполнение
+        BookingRequest request = parser.parse(mail, TODAY);
+
+        // Проверка
+        assertEquals(TODAY.plusDays(1), request.getDate());
+        assertEquals(LocalTime.of(20, 0), request.getTime());
+        assertEquals(4, request.getPartySize());
+        assertEquals("Анна", request.getCustomerName());
+    }
+
+    @Test
+    @DisplayName("Прошедшая дата без года относится к следующему году, нераспознанные поля пусты")
+    void missingFieldsStayEmpty() {
+        // Подготовка
+        InboundMail mail = InboundMail.builder()
+                .from("guest@example.com")
+                .text("Можно столик 3 января?")
+                .build();
+
+        // Выполнение
+        BookingRequest request = parser.parse(mail, TODAY);
+
+        // Проверка
+        assertEquals(LocalDate.of(2031, 1, 3), request.getDate());
+        assertNull(request.getTime());
+        assertNull(request.getPartySize());
+        assertEquals("guest", request.getCustomerName());
+    }
+}
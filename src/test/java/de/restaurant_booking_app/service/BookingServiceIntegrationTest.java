@@ -1,6 +1,7 @@
 package de.restaurant_booking_app.service;
 
 import de.restaurant_booking_app.dto.BookingDto;
+import de.restaurant_booking_app.dto.BookingPage;
 import de.restaurant_booking_app.exception.BookingConflictException;
 import de.restaurant_booking_app.model.Booking;
 import de.restaurant_booking_app.model.BookingStatus;
@@ -12,19 +13,30 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 
@@ -63,6 +75,12 @@ public class BookingServiceIntegrationTest {
     @Autowired
     private BookingTableRepository tableRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @SpyBean
+    private TableAvailabilityIndex tableAvailabilityIndex;
+
     private BookingTable testTable;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
@@ -152,6 +170,117 @@ public class BookingServiceIntegrationTest {
         assertEquals(BookingStatus.CANCELLED, fromDb.getStatus());
     }
 
+    @Test
+    void getBookingsPageWithCursor() {
+        // Создаем три непересекающихся бронирования
+        for (int i = 0; i < 3; i++) {
+            bookingService.createBooking(createTestBookingDto(testTable.getId(),
+                    startTime.plusHours(3L * i), endTime.plusHours(3L * i)));
+        }
+
+        // Первая страница
+        BookingPage firstPage = bookingService.getBookingsPage(BookingStatus.CONFIRMED, testTable.getId(), null, 2);
+        assertEquals(2, firstPage.getItems().size());
+        assertTrue(firstPage.hasNext());
+
+        // Вторая страница по курсору
+        BookingPage secondPage = bookingService.getBookingsPage(
+                BookingStatus.CONFIRMED, testTable.getId(), firstPage.getNextCursor(), 2);
+        assertEquals(1, secondPage.getItems().size());
+        assertFalse(secondPage.hasNext());
+        assertTrue(secondPage.getItems().get(0).getStartTime()
+                .isAfter(firstPage.getItems().get(1).getStartTime()));
+    }
+
+    @Test
+    void getBookingsPageForDay() {
+        // Два бронирования в один день и одно на следующий
+        LocalDateTime dayStart = startTime.toLocalDate().plusDays(2).atTime(12, 0);
+        bookingService.createBooking(createTestBookingDto(testTable.getId(), dayStart, dayStart.plusHours(2)));
+        bookingService.createBooking(createTestBookingDto(testTable.getId(), dayStart.plusHours(3), dayStart.plusHours(5)));
+        bookingService.createBooking(createTestBookingDto(testTable.getId(), dayStart.plusDays(1), dayStart.plusDays(1).plusHours(2)));
+
+        // Первая страница дня
+        BookingPage firstPage = bookingService.getBookingsPage(null, testTable.getId(), dayStart.toLocalDate(), null, 1);
+        assertEquals(1, firstPage.getItems().size());
+        assertTrue(firstPage.hasNext());
+
+        // Следующая страница того же дня не выходит за его границу
+        BookingPage secondPage = bookingService.getBookingsPage(
+                null, testTable.getId(), dayStart.toLocalDate(), firstPage.getNextCursor(), 1);
+        assertEquals(1, secondPage.getItems().size());
+        assertFalse(secondPage.hasNext());
+        assertEquals(dayStart.plusHours(3), secondPage.getItems().get(0).getStartTime());
+    }
+
+    @Test
+    void getBookingsPageWithSameStartTime() {
+        // Три бронирования на разных столиках с одинаковым временем начала
+        LocalDateTime sameStart = startTime.toLocalDate().plusDays(3).atTime(19, 0);
+        for (int i = 0; i < 3; i++) {
+            BookingTable table = i == 0 ? testTable : tableRepository.save(BookingTable.builder()
+                    .tableNumber(100 + i)
+                    .capacity(4)
+                    .isVip(false)
+                    .build());
+            bookingService.createBooking(createTestBookingDto(table.getId(), sameStart, sameStart.plusHours(2)));
+        }
+
+        // Порядок внутри одного времени начала задается id
+        BookingPage firstPage = bookingService.getBookingsPage(
+                BookingStatus.CONFIRMED, null, sameStart.toLocalDate(), null, 2);
+        BookingPage secondPage = bookingService.getBookingsPage(
+                BookingStatus.CONFIRMED, null, sameStart.toLocalDate(), firstPage.getNextCursor(), 2);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertTrue(firstPage.hasNext());
+        assertEquals(1, secondPage.getItems().size());
+        assertFalse(secondPage.hasNext());
+        Long firstId = firstPage.getItems().get(0).getId();
+        Long secondId = firstPage.getItems().get(1).getId();
+        Long thirdId = secondPage.getItems().get(0).getId();
+        assertTrue(firstId < secondId);
+        assertTrue(secondId < thirdId);
+        assertEquals(sameStart, secondPage.getItems().get(0).getStartTime());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void createAfterRolledBackCreateOnSameSlot() throws Exception {
+        // Очистка карты занятости после отката замедлена: если блокировка полосы снимается раньше нее,
+        // ожидающий запрос увидит слоты откатившейся транзакции и получит отказ
+        doAnswer(invocation -> {
+            Thread.sleep(300);
+            return invocation.callRealMethod();
+        }).when(tableAvailabilityIndex).invalidate(any(), any(), any());
+        LocalDateTime slotStart = startTime.toLocalDate().plusDays(4).atTime(18, 0);
+        BookingDto bookingDto = createTestBookingDto(testTable.getId(), slotStart, slotStart.plusHours(2));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<Future<Booking>> second = new ArrayList<>();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                bookingService.createBooking(bookingDto);
+                // Второй запрос на тот же слот ждет полосу, занятую первой транзакцией
+                second.add(executor.submit(() -> bookingService.createBooking(bookingDto)));
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                status.setRollbackOnly();
+            });
+
+            // После отката первого бронирования второе проходит
+            Booking booking = second.get(0).get(10, TimeUnit.SECONDS);
+            assertNotNull(booking.getId());
+            assertEquals(1, bookingRepository.findByTableId(testTable.getId()).size());
+        } finally {
+            executor.shutdownNow();
+            bookingRepository.deleteAll();
+        }
+    }
+
     // Вспомогательный метод для создания тестового DTO бронирования
     private BookingDto createTestBookingDto(Long tableId, LocalDateTime start, LocalDateTime end) {
         return BookingDto.builder()
@@ -0,0 +1,71 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.Booking;
+import de.restaurant_booking_app.model.BookingStatus;
+import de.restaurant_booking_app.model.BookingTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.Context;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailRendererTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmailRenderer emailRenderer;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        emailRenderer = new EmailRenderer();
+        emailRenderer.warmUp();
+        emailService = new EmailService(null, null, emailRenderer, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Детали бронирования выводятся фрагментом шаблона")
+    void rendersBookingFragment() {
+        // Подготовка
+        Booking booking = Booking.builder()
+                .id(42L)
+                .table(BookingTable.builder().id(1L).tableNumber(7).capacity(4).isVip(false).build())
+                .startTime(LocalDateTime.of(2030, 5, 1, 19, 0))
+                .endTime(LocalDateTime.of(2030, 5, 1, 21, 0))
+                .customerName("<b>Иван</b>")
+                .customerEmail("ivan@example.com")
+                .status(BookingStatus.CANCELLED)
+                .build();
+        Context context = emailService.bookingContext(booking, "Ваше бронирование было отменено.");
+
+        // Выполнение
+        String html = emailRenderer.render(EmailRenderer.EMAIL_TEMPLATE, context);
+
+        // Проверка
+        assertTrue(html.contains("Ваше бронирование было отменено."));
+        assertTrue(html.contains("01.05.2030 19:00"));
+        assertTrue(html.contains("Отменено"));
+        assertTrue(html.contains("&lt;b&gt;Иван&lt;/b&gt;"));
+        assertFalse(html.contains("Детали бронирования будут здесь"));
+    }
+
+    @Test
+    @DisplayName("Произвольное сообщение выводится без фрагмента бронирования")
+    void rendersPlainMessage() {
+        // Подготовка
+        Context context = new Context();
+        context.setVariable("name", "Администратор");
+        context.setVariable("message", "Тестовое уведомление");
+
+        // Выполнение
+        String html = emailRenderer.render(EmailRenderer.EMAIL_TEMPLATE, context);
+
+        // Проверка
+        assertTrue(html.contains("Тестовое уведомление"));
+        assertFalse(html.contains("Информация о вашем бронировании"));
+    }
+}
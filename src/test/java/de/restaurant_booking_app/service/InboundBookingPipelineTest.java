@@ -0,0 +1,202 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.BookingDto;
+import de.restaurant_booking_app.dto.BookingRequest;
+import de.restaurant_booking_app.dto.InboundMail;
+import de.restaurant_booking_app.exception.BookingConflictException;
+import de.restaurant_booking_app.model.Booking;
+import de.restaurant_booking_app.model.BookingReview;
+import de.restaurant_booking_app.model.BookingTable;
+import de.restaurant_booking_app.model.InboundBookingRequest;
+import de.restaurant_booking_app.model.InboundRequestStatus;
+import de.restaurant_booking_app.repository.BookingReviewRepository;
+import de.restaurant_booking_app.repository.InboundBookingRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InboundBookingPipelineTest {
+
+    @Mock
+    private BookingService bookingService;
+
+    @Mock
+    private BookingReviewRepository reviewRepository;
+
+    @Mock
+    private InboundBookingRequestRepository requestRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InboundBookingPipeline pipeline;
+    private LocalDate date;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new InboundBookingPipeline(bookingService, new BookingRequestParser(), reviewRepository,
+                requestRepository, transactionManager, meterRegistry, 1, 10, 10, Duration.ofMillis(50), Duration.ofHours(2));
+        date = LocalDate.now().plusDays(3);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    @DisplayName("Заявки на одно время проверяются одним запросом и получают подходящие столики")
+    void booksGroupWithSingleAvailabilityCheck() {
+        // Подготовка
+        LocalDateTime start = date.atTime(19, 0);
+        BookingTable small = BookingTable.builder().id(1L).tableNumber(1).capacity(2).isVip(false).build();
+        BookingTable large = BookingTable.builder().id(2L).tableNumber(2).capacity(4).isVip(false).build();
+        when(bookingService.findAvailableTables(2, start, start.plusHours(2))).thenReturn(List.of(small, large));
+        when(bookingService.createBooking(any(BookingDto.class))).thenReturn(Booking.builder().id(100L).build());
+        when(requestRepository.markDecided(anyLong(), eq(InboundRequestStatus.BOOKED), eq(100L), any())).thenReturn(1);
+
+        // Выполнение
+        pipeline.processBatch(List.of(pending(1, 4, LocalTime.of(19, 0)), pending(2, 2, LocalTime.of(19, 0))));
+
+        // Проверка
+        verify(bookingService, times(1)).findAvailableTables(any(), any(), any());
+        ArgumentCaptor<BookingDto> bookings = ArgumentCaptor.forClass(BookingDto.class);
+        verify(bookingService, times(2)).createBooking(bookings.capture());
+        assertEquals(2L, bookings.getAllValues().get(0).getTableId());
+        assertEquals(1L, bookings.getAllValues().get(1).getTableId());
+        verifyNoInteractions(reviewRepository);
+        assertEquals(2, meterRegistry.get("booking.inbound.requests").tag("outcome", "booked").counter().count());
+    }
+
+    @Test
+    @DisplayName("Неполная заявка и заявка без свободного столика уходят на проверку")
+    void queuesUnresolvedRequestsForReview() {
+        // Подготовка
+        LocalDateTime start = date.atTime(20, 0);
+        BookingTable table = BookingTable.builder().id(3L).tableNumber(3).capacity(4).isVip(false).build();
+        when(bookingService.findAvailableTables(4, start, start.plusHours(2))).thenReturn(List.of(table));
+        when(bookingService.createBooking(any(BookingDto.class)))
+                .thenThrow(new BookingConflictException("Столик #3 уже забронирован на указанное время"));
+        when(requestRepository.markDecided(anyLong(), eq(InboundRequestStatus.REVIEW), any(), any())).thenReturn(1);
+
+        // Выполнение
+        pipeline.processBatch(List.of(pending(3, 4, LocalTime.of(20, 0)), pending(4, 4, null)));
+
+        // Проверка
+        ArgumentCaptor<BookingReview> reviews = ArgumentCaptor.forClass(BookingReview.class);
+        verify(reviewRepository, times(2)).save(reviews.capture());
+        assertEquals("Не удалось определить: время", reviews.getAllValues().get(0).getReason());
+        assertEquals(4L, reviews.getAllValues().get(0).getMailUid());
+        assertEquals("Нет свободного столика на 4 человек", reviews.getAllValues().get(1).getReason());
+        assertEquals(2, meterRegistry.get("booking.inbound.requests").tag("outcome", "review").counter().count());
+    }
+
+    @Test
+    @DisplayName("Письмо сохраняется как заявка до возврата из обработчика, повторное письмо пропускается")
+    void handlePersistsRequestBeforeReturning() throws Exception {
+        // Подготовка
+        InboundMail mail = InboundMail.builder()
+                .uid(7)
+                .folder("INBOX")
+                .uidValidity(1)
+                .from("guest@example.com")
+                .subject("Бронирование")
+                .text("Добрый день! Столик на 2 человек " + date + " в 19:00")
+                .build();
+        when(requestRepository.saveAndFlush(any(InboundBookingRequest.class)))
+                .thenAnswer(invocation -> {
+                    InboundBookingRequest request = invocation.getArgument(0);
+                    request.setId(70L);
+                    return request;
+                })
+                .thenThrow(new DataIntegrityViolationException("uk_inbound_booking_requests_mail"));
+
+        // Выполнение
+        pipeline.handle(mail);
+        pipeline.handle(mail);
+
+        // Проверка
+        ArgumentCaptor<InboundBookingRequest> saved = ArgumentCaptor.forClass(InboundBookingRequest.class);
+        verify(requestRepository, times(2)).saveAndFlush(saved.capture());
+        assertEquals(7L, saved.getValue().getMailUid());
+        assertEquals("INBOX", saved.getValue().getFolder());
+        assertEquals(1L, saved.getValue().getUidValidity());
+        assertEquals(InboundRequestStatus.PENDING, saved.getValue().getStatus());
+        assertTrue(saved.getValue().getBody().contains("19:00"));
+    }
+
+    @Test
+    @DisplayName("Письмо с тем же UID после смены UIDVALIDITY принимается как новая заявка")
+    void sameUidUnderNewUidValidityIsAccepted() throws Exception {
+        // Подготовка
+        Set<List<Object>> keys = new HashSet<>();
+        when(requestRepository.saveAndFlush(any(InboundBookingRequest.class))).thenAnswer(invocation -> {
+            InboundBookingRequest request = invocation.getArgument(0);
+            if (!keys.add(List.of(request.getFolder(), request.getUidValidity(), request.getMailUid()))) {
+                throw new DataIntegrityViolationException("uk_inbound_booking_requests_mail");
+            }
+            request.setId((long) keys.size());
+            return request;
+        });
+
+        // Выполнение
+        pipeline.handle(mail(7, 1));
+        pipeline.handle(mail(7, 1));
+        pipeline.handle(mail(7, 2));
+
+        // Проверка
+        ArgumentCaptor<InboundBookingRequest> saved = ArgumentCaptor.forClass(InboundBookingRequest.class);
+        verify(requestRepository, times(3)).saveAndFlush(saved.capture());
+        assertEquals(2, keys.size());
+        assertEquals(2L, saved.getAllValues().get(2).getUidValidity());
+        assertEquals(2L, saved.getAllValues().get(2).getId());
+    }
+
+    private InboundMail mail(long uid, long uidValidity) {
+        return InboundMail.builder()
+                .uid(uid)
+                .folder("INBOX")
+                .uidValidity(uidValidity)
+                .from("guest@example.com")
+                .subject("Бронирование")
+                .text("Добрый день! Столик на 2 человек " + date + " в 19:00")
+                .build();
+    }
+
+    private InboundBookingPipeline.Pending pending(long uid, int partySize, LocalTime time) {
+        BookingRequest request = BookingRequest.builder()
+                .mailUid(uid)
+                .date(date)
+                .time(time)
+                .partySize(partySize)
+                .customerName("Гость " + uid)
+                .customerEmail("guest" + uid + "@example.com")
+                .build();
+        return new InboundBookingPipeline.Pending(request, uid * 10, System.nanoTime());
+    }
+}
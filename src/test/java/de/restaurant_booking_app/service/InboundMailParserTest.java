@@ -0,0 +1,94 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.InboundMail;
+import jakarta.activation.DataHandler;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.util.ByteArrayDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InboundMailParserTest {
+
+    @TempDir
+    Path spoolDir;
+
+    @Test
+    @DisplayName("Короткий текст остается в памяти, вложение сохраняется на диск")
+    void keepsSmallTextInMemory() throws Exception {
+        // Подготовка
+        InboundMailParser parser = new InboundMailParser(spoolDir, DataSize.ofKilobytes(64));
+        MimeMessage message = message("Столик на четверых завтра в 19:00", "menu.pdf");
+
+        // Выполнение
+        InboundMail mail = parser.parse(message, 17);
+
+        // Проверка
+        assertEquals(17, mail.getUid());
+        assertEquals("Бронирование", mail.getSubject());
+        assertNull(mail.getTextFile());
+        assertEquals("Столик на четверых завтра в 19:00", mail.readText());
+        assertEquals(1, mail.getAttachments().size());
+        InboundMail.Attachment attachment = mail.getAttachments().get(0);
+        assertEquals("menu.pdf", attachment.getFileName());
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(attachment.getFile()));
+
+        parser.release(mail);
+        assertFalse(Files.exists(attachment.getFile()));
+    }
+
+    @Test
+    @DisplayName("Текст больше порога записывается во временный файл и удаляется после обработки")
+    void spillsLargeTextToDisk() throws Exception {
+        // Подготовка
+        InboundMailParser parser = new InboundMailParser(spoolDir, DataSize.ofBytes(1024));
+        String text = "Прошу забронировать столик. ".repeat(200);
+        MimeMessage message = message(text, null);
+
+        // Выполнение
+        InboundMail mail = parser.parse(message, 18);
+
+        // Проверка
+        assertNull(mail.getText());
+        assertNotNull(mail.getTextFile());
+        assertEquals(text, mail.readText());
+        assertTrue(mail.getAttachments().isEmpty());
+
+        parser.release(mail);
+        assertFalse(Files.exists(mail.getTextFile()));
+    }
+
+    private static MimeMessage message(String text, String attachmentName) throws Exception {
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setFrom(new InternetAddress("guest@example.com"));
+        message.setSubject("Бронирование", "UTF-8");
+
+        MimeMultipart multipart = new MimeMultipart();
+        MimeBodyPart textPart = new MimeBodyPart();
+        textPart.setText(text, "UTF-8");
+        multipart.addBodyPart(textPart);
+        MimeBodyPart htmlPart = new MimeBodyPart();
+        htmlPart.setText("<p>" + text + "</p>", "UTF-8", "html");
+        multipart.addBodyPart(htmlPart);
+        if (attachmentName != null) {
+            MimeBodyPart attachmentPart = new MimeBodyPart();
+            attachmentPart.setDataHandler(new DataHandler(new ByteArrayDataSource(new byte[]{1, 2, 3}, "application/pdf")));
+            attachmentPart.setFileName(attachmentName);
+            multipart.addBodyPart(attachmentPart);
+        }
+        message.setContent(multipart);
+        message.saveChanges();
+        return message;
+    }
+}
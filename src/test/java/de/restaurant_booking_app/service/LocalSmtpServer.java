@@ -0,0 +1,116 @@
+package de.restaurant_booking_app.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Минимальный SMTP-сервер для тестов и замеров: принимает письма и ничего не хранит.
+ * Задержка при открытии соединения имитирует TLS-рукопожатие и аутентификацию.
+ * Получатели, в адресе которых есть {@code rejected}, отклоняются; после {@link #dropAfterMessages}
+ * писем сервер закрывает соединение, как при разрыве по таймауту.
+ */
+class LocalSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long handshakeDelayMillis;
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private volatile int dropAfter;
+
+    LocalSmtpServer(long handshakeDelayMillis) throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        this.handshakeDelayMillis = handshakeDelayMillis;
+        executor.execute(this::acceptLoop);
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    long getConnections() {
+        return connections.get();
+    }
+
+    long getMessages() {
+        return messages.get();
+    }
+
+    /**
+     * Закрытие соединения после указанного числа писем (0 — не закрывать)
+     */
+    void dropAfterMessages(int count) {
+        this.dropAfter = count;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            Thread.sleep(handshakeDelayMillis);
+            reply(out, "220 localhost ESMTP");
+            int accepted = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase(Locale.ROOT) : line;
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "RCPT" -> reply(out, line.contains("rejected") ? "550 5.1.1 User unknown" : "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data;
+                        while ((data = in.readLine()) != null && !data.equals(".")) {
+                            // содержимое письма не сохраняется
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 OK");
+                        if (dropAfter > 0 && ++accepted >= dropAfter) {
+                            return;
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // клиент закрыл соединение
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,88 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.MenuItem;
+import de.restaurant_booking_app.model.MenuItemCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MenuSearchIndexTest {
+
+    private MenuSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MenuSearchIndex();
+        index.rebuild(Arrays.asList(
+                item(1L, "Борщ", "Традиционный борщ со сметаной"),
+                item(2L, "Салат с ёжевикой", "Свежие листья салата и ягоды"),
+                item(3L, "Цезарь с курицей", "Салат с курицей и соусом Цезарь"),
+                item(4L, "Пельмени", "Домашние пельмени с говядиной")));
+    }
+
+    @Test
+    @DisplayName("Поиск не зависит от регистра и различия «е» и «ё»")
+    void caseAndYoFolding() {
+        assertEquals(Collections.singletonList(2L), index.search("ЕЖЕВИКА"));
+        assertEquals(Collections.singletonList(1L), index.search("борщ"));
+    }
+
+    @Test
+    @DisplayName("Формы слова сводятся к одной основе")
+    void stemming() {
+        assertEquals(Collections.singletonList(4L), index.search("пельменями"));
+        assertEquals("салат", MenuSearchIndex.stem("салаты"));
+    }
+
+    @Test
+    @DisplayName("Совпадение в названии ранжируется выше совпадения в описании")
+    void nameRankedAboveDescription() {
+        List<Long> result = index.search("салат");
+
+        assertEquals(Arrays.asList(2L, 3L), result);
+    }
+
+    @Test
+    @DisplayName("Поиск по префиксу и с опечаткой")
+    void prefixAndFuzzy() {
+        assertEquals(Collections.singletonList(4L), index.search("пельм"));
+        assertEquals(Collections.singletonList(3L), index.search("цезорь"));
+        assertTrue(index.search("абракадабра").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Пустой запрос возвращает все блюда")
+    void blankQueryReturnsAll() {
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), index.search(""));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), index.search("   "));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), index.search(null));
+    }
+
+    @Test
+    @DisplayName("Индекс обновляется поэлементно")
+    void incrementalUpdates() {
+        index.put(item(1L, "Солянка", "Сборная мясная солянка"));
+        index.remove(4L);
+
+        assertTrue(index.search("борщ").isEmpty());
+        assertEquals(Collections.singletonList(1L), index.search("солянка"));
+        assertTrue(index.search("пельмени").isEmpty());
+    }
+
+    private MenuItem item(Long id, String name, String description) {
+        return MenuItem.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .price(new BigDecimal("100.00"))
+                .category(MenuItemCategory.MAIN_COURSE)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package de.restaurant_booking_app.service;
 
+import de.restaurant_booking_app.dto.MenuFilter;
 import de.restaurant_booking_app.exception.ResourceNotFoundException;
 import de.restaurant_booking_app.model.MenuItem;
 import de.restaurant_booking_app.model.MenuItemCategory;
@@ -15,6 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -79,40 +81,40 @@ public class MenuServiceTest {
     @DisplayName("Получение доступных пунктов меню")
     void getAvailableMenuItems() {
         // Подготовка
-        List<MenuItem> expectedMenuItems = Arrays.asList(testMenuItem1, testMenuItem2);
-        when(menuItemRepository.findByAvailableTrue()).thenReturn(expectedMenuItems);
+        testMenuItem2.setAvailable(false);
+        when(menuItemRepository.findAll()).thenReturn(Arrays.asList(testMenuItem1, testMenuItem2));
 
         // Выполнение
         List<MenuItem> actualMenuItems = menuService.getAvailableMenuItems();
 
         // Проверка
-        assertEquals(expectedMenuItems, actualMenuItems);
-        verify(menuItemRepository).findByAvailableTrue();
+        assertEquals(Collections.singletonList(testMenuItem1), actualMenuItems);
+        verify(menuItemRepository).findAll();
     }
 
     @Test
     @DisplayName("Получение пункта меню по ID - успешно")
     void getMenuItemById_WhenExists() {
         // Подготовка
-        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(testMenuItem1));
+        when(menuItemRepository.findAll()).thenReturn(Arrays.asList(testMenuItem1, testMenuItem2));
 
         // Выполнение
         MenuItem actualMenuItem = menuService.getMenuItemById(1L);
 
         // Проверка
         assertEquals(testMenuItem1, actualMenuItem);
-        verify(menuItemRepository).findById(1L);
+        verify(menuItemRepository).findAll();
     }
 
     @Test
     @DisplayName("Получение пункта меню по ID - не найден")
     void getMenuItemById_WhenNotExists() {
         // Подготовка
-        when(menuItemRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(menuItemRepository.findAll()).thenReturn(Arrays.asList(testMenuItem1, testMenuItem2));
 
         // Выполнение и проверка
         assertThrows(ResourceNotFoundException.class, () -> menuService.getMenuItemById(999L));
-        verify(menuItemRepository).findById(999L);
+        verify(menuItemRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -120,14 +122,14 @@ public class MenuServiceTest {
     void getMenuItemsByCategory() {
         // Подготовка
         List<MenuItem> expectedMenuItems = Collections.singletonList(testMenuItem1);
-        when(menuItemRepository.findByCategory(MenuItemCategory.SALAD)).thenReturn(expectedMenuItems);
+        when(menuItemRepository.findAll()).thenReturn(Arrays.asList(testMenuItem1, testMenuItem2));
 
         // Выполнение
         List<MenuItem> actualMenuItems = menuService.getMenuItemsByCategory(MenuItemCategory.SALAD);
 
         // Проверка
         assertEquals(expectedMenuItems, actualMenuItems);
-        verify(menuItemRepository).findByCategory(MenuItemCategory.SALAD);
+        assertTrue(menuService.getMenuItemsByCategory(MenuItemCategory.DESSERT).isEmpty());
     }
 
     @Test
@@ -135,7 +137,7 @@ public class MenuServiceTest {
     void getMenuByCategories() {
         // Подготовка
         List<MenuItem> availableItems = Arrays.asList(testMenuItem1, testMenuItem2);
-        when(menuItemRepository.findByAvailableTrue()).thenReturn(availableItems);
+        when(menuItemRepository.findAll()).thenReturn(availableItems);
 
         // Выполнение
         Map<MenuItemCategory, List<MenuItem>> menuByCategories = menuService.getMenuByCategories();
@@ -146,7 +148,88 @@ public class MenuServiceTest {
         assertTrue(menuByCategories.containsKey(MenuItemCategory.SOUP));
         assertEquals(1, menuByCategories.get(MenuItemCategory.SALAD).size());
         assertEquals(1, menuByCategories.get(MenuItemCategory.SOUP).size());
-        verify(menuItemRepository).findByAvailableTrue();
+        verify(menuItemRepository).findAll();
+    }
+
+    @Test
+    @DisplayName("Повторные чтения меню обслуживаются из снимка")
+    void readsServedFromSnapshot() {
+        // Подготовка
+        testMenuItem1.setVegetarian(true);
+        when(menuItemRepository.findAll()).thenReturn(Arrays.asList(testMenuItem1, testMenuItem2));
+
+        // Выполнение
+        menuService.getMenuByCategories();
+        List<MenuItem> vegetarianItems = menuService.getVegetarianItems();
+        List<MenuItem> foundItems = menuService.searchMenuItems("БОРЩ");
+
+        // Проверка
+        assertEquals(Collections.singletonList(testMenuItem1), vegetarianItems);
+        assertEquals(Collections.singletonList(testMenuItem2), foundItems);
+        assertEquals(1, menuService.getSnapshot().getVersion());
+        verify(menuItemRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Изменение полученного блюда не меняет снимок")
+    void returnedItemsDoNotChangeSnapshot() {
+        // Подготовка
+        when(menuItemRepository.findAll()).thenReturn(Arrays.asList(testMenuItem1, testMenuItem2));
+        MenuItem menuItem = menuService.getMenuItemById(1L);
+
+        // Выполнение
+        menuItem.setPrice(new BigDecimal("1.00"));
+        menuService.getAllMenuItems().get(0).setAvailable(false);
+        menuService.getMenuItemsByCategory(MenuItemCategory.SOUP).get(0).setName("Щи");
+        menuService.getMenuByCategories().get(MenuItemCategory.SALAD).get(0).setVegetarian(true);
+        menuService.filterMenuItems(new MenuFilter()).get(1).setAvailable(false);
+
+        // Проверка
+        assertEquals(new BigDecimal("550.00"), menuService.getMenuItemById(1L).getPrice());
+        assertEquals(2, menuService.getAvailableMenuItems().size());
+        assertEquals("Борщ", menuService.getMenuItemById(2L).getName());
+        assertTrue(menuService.getVegetarianItems().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Комбинированный фильтр по признакам и категориям")
+    void filterMenuItems() {
+        // Подготовка
+        MenuItem veganDessert = MenuItem.builder()
+                .id(3L)
+                .name("Сорбет")
+                .price(new BigDecimal("300.00"))
+                .category(MenuItemCategory.DESSERT)
+                .available(true)
+                .isVegetarian(true)
+                .isVegan(true)
+                .build();
+        MenuItem unavailableVeganDessert = MenuItem.builder()
+                .id(4L)
+                .name("Фруктовый салат")
+                .price(new BigDecimal("350.00"))
+                .category(MenuItemCategory.DESSERT)
+                .available(false)
+                .isVegan(true)
+                .build();
+        when(menuItemRepository.findAll())
+                .thenReturn(Arrays.asList(testMenuItem1, testMenuItem2, veganDessert, unavailableVeganDessert));
+
+        // Выполнение
+        List<MenuItem> availableVeganDesserts = menuService.filterMenuItems(MenuFilter.builder()
+                .available(true)
+                .vegan(true)
+                .categories(EnumSet.of(MenuItemCategory.DESSERT))
+                .build());
+        List<MenuItem> nonVegetarianSaladsOrSoups = menuService.filterMenuItems(MenuFilter.builder()
+                .vegetarian(false)
+                .categories(EnumSet.of(MenuItemCategory.SALAD, MenuItemCategory.SOUP))
+                .build());
+
+        // Проверка
+        assertEquals(Collections.singletonList(veganDessert), availableVeganDesserts);
+        assertEquals(Arrays.asList(testMenuItem1, testMenuItem2), nonVegetarianSaladsOrSoups);
+        assertEquals(4, menuService.filterMenuItems(new MenuFilter()).size());
     }
 
     @Test
@@ -0,0 +1,193 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.Booking;
+import de.restaurant_booking_app.model.NotificationChannel;
+import de.restaurant_booking_app.model.NotificationOutbox;
+import de.restaurant_booking_app.model.NotificationType;
+import de.restaurant_booking_app.model.OutboxStatus;
+import de.restaurant_booking_app.repository.BookingRepository;
+import de.restaurant_booking_app.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationOutboxServiceTest {
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationOutboxService outboxService;
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new NotificationOutboxService(outboxRepository, bookingRepository, emailService,
+                notificationService, meterRegistry);
+        ReflectionTestUtils.setField(outboxService, "batchSize", 50);
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outboxService, "retryDelay", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(outboxService, "maxRetryDelay", Duration.ofHours(1));
+        ReflectionTestUtils.setField(outboxService, "lease", Duration.ofMinutes(5));
+
+        booking = Booking.builder().id(7L).customerPhone("+79991234567").build();
+        when(bookingRepository.findById(7L)).thenReturn(Optional.of(booking));
+        when(outboxRepository.findDueIds(eq(OutboxStatus.PENDING), any(), any())).thenReturn(List.of(1L));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        outboxService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Запись помечается отправленной только после ответа SMS-шлюза")
+    void smsEntryIsCompletedWhenGatewayAnswers() {
+        // Подготовка
+        ReflectionTestUtils.setField(outboxService, "lease", Duration.ofMillis(200));
+        NotificationOutbox entry = entry(NotificationChannel.ADMIN_SMS, 0);
+        when(outboxRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(entry));
+        CompletableFuture<Void> gateway = new CompletableFuture<>();
+        when(notificationService.sendAdminNotificationSms(eq(booking), any())).thenReturn(gateway);
+
+        // Выполнение
+        outboxService.dispatchPending();
+        verify(outboxRepository, never()).save(any());
+        gateway.complete(null);
+
+        // Проверка
+        ArgumentCaptor<NotificationOutbox> saved = ArgumentCaptor.forClass(NotificationOutbox.class);
+        verify(outboxRepository, timeout(2000)).save(saved.capture());
+        assertEquals(OutboxStatus.SENT, saved.getValue().getStatus());
+        assertNull(saved.getValue().getClaimToken());
+    }
+
+    @Test
+    @DisplayName("Сбой SMS откладывает повтор только этой записи, письмо повторно не отправляется")
+    void failedSmsIsRetriedWithBackoff() {
+        // Подготовка
+        NotificationOutbox entry = entry(NotificationChannel.SMS, 1);
+        when(outboxRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(entry));
+        when(notificationService.sendBookingConfirmationSms(booking))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("HTTP 503")));
+
+        // Выполнение
+        outboxService.dispatchPending();
+
+        // Проверка
+        verify(outboxRepository).claim(eq(List.of(1L)), eq(OutboxStatus.PENDING), any(), anyString(), any());
+        NotificationOutbox saved = savedEntry();
+        assertEquals(OutboxStatus.PENDING, saved.getStatus());
+        assertEquals(2, saved.getAttempts());
+        assertEquals("HTTP 503", saved.getLastError());
+        assertNull(saved.getClaimToken());
+        assertTrue(saved.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+        verifyNoInteractions(emailService);
+        assertEquals(1, meterRegistry.get("notification.outbox.dispatch").tag("result", "retry").counter().count());
+    }
+
+    @Test
+    @DisplayName("После исчерпания попыток запись помечается как FAILED")
+    void lastAttemptMarksEntryFailed() throws Exception {
+        // Подготовка
+        NotificationOutbox entry = entry(NotificationChannel.EMAIL, 2);
+        when(outboxRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(entry));
+        MimeMessage message = mock(MimeMessage.class);
+        when(emailService.buildBookingNotification(NotificationType.BOOKING_CONFIRMATION, booking)).thenReturn(message);
+        when(emailService.sendBatch(List.of(message)))
+                .thenReturn(List.of(new SmtpTransportPool.Delivery(message, new MessagingException("SMTP недоступен"))));
+
+        // Выполнение
+        outboxService.dispatchPending();
+
+        // Проверка
+        NotificationOutbox saved = savedEntry();
+        assertEquals(OutboxStatus.FAILED, saved.getStatus());
+        assertEquals(3, saved.getAttempts());
+        verify(notificationService, never()).sendBookingConfirmationSms(any());
+        assertEquals(1, meterRegistry.get("notification.outbox.dispatch").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Письма порции отправляются одним пакетом, результат записывается для каждого письма")
+    void emailsAreSentAsOneBatch() throws Exception {
+        // Подготовка
+        NotificationOutbox first = entry(1L, NotificationChannel.EMAIL, 0);
+        NotificationOutbox second = entry(2L, NotificationChannel.EMAIL, 0);
+        when(outboxRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(first, second));
+        MimeMessage accepted = mock(MimeMessage.class);
+        MimeMessage rejected = mock(MimeMessage.class);
+        when(emailService.buildBookingNotification(NotificationType.BOOKING_CONFIRMATION, booking))
+                .thenReturn(accepted, rejected);
+        when(emailService.sendBatch(List.of(accepted, rejected))).thenReturn(List.of(
+                new SmtpTransportPool.Delivery(accepted, null),
+                new SmtpTransportPool.Delivery(rejected, new SendFailedException("550 User unknown"))));
+
+        // Выполнение
+        outboxService.dispatchPending();
+
+        // Проверка
+        verify(emailService, times(1)).sendBatch(any());
+        verify(emailService, never()).sendBookingNotification(any(), any());
+        verify(outboxRepository, times(2)).save(any());
+        assertEquals(OutboxStatus.SENT, first.getStatus());
+        assertEquals(OutboxStatus.PENDING, second.getStatus());
+        assertEquals(1, second.getAttempts());
+        assertEquals("550 User unknown", second.getLastError());
+    }
+
+    private NotificationOutbox entry(NotificationChannel channel, int attempts) {
+        return entry(1L, channel, attempts);
+    }
+
+    private NotificationOutbox entry(Long id, NotificationChannel channel, int attempts) {
+        return NotificationOutbox.builder()
+                .id(id)
+                .type(NotificationType.BOOKING_CONFIRMATION)
+                .bookingId(7L)
+                .channel(channel)
+                .attempts(attempts)
+                .claimToken("token")
+                .nextAttemptAt(LocalDateTime.now().plusMinutes(5))
+                .build();
+    }
+
+    private NotificationOutbox savedEntry() {
+        ArgumentCaptor<NotificationOutbox> saved = ArgumentCaptor.forClass(NotificationOutbox.class);
+        verify(outboxRepository).save(saved.capture());
+        return saved.getValue();
+    }
+}
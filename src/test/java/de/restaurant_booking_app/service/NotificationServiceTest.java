@@ -0,0 +1,188 @@
+package de.restaurant_booking_app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import de.restaurant_booking_app.config.RestClientConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationServiceTest {
+
+    private HttpServer server;
+    private CloseableHttpAsyncClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationService notificationService;
+    private final AtomicInteger batchRequests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/sms", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/sms/batch", exchange -> {
+            batchRequests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            byte[] response = ("{\"results\":[{\"status\":\"sent\"},"
+                    + "{\"status\":\"failed\",\"error\":\"Неверный номер\"},{\"status\":\"sent\"}]}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.createContext("/sms/slow-batch", exchange -> {
+            try {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(500);
+                byte[] response = "{\"results\":[{\"status\":\"sent\"},{\"status\":\"sent\"}]}"
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+                exchange.sendResponseHeaders(200, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        httpClient = new RestClientConfig().notificationHttpClient(meterRegistry, 10, 5, 1,
+                Duration.ofSeconds(1), Duration.ofSeconds(5));
+        notificationService = new NotificationService(httpClient, new ObjectMapper(), meterRegistry,
+                true, Duration.ofMillis(50), 500);
+        ReflectionTestUtils.setField(notificationService, "smsApiKey", "test-key");
+        ReflectionTestUtils.setField(notificationService, "defaultDeadline", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        notificationService.shutdown();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("SMS отправляется асинхронно, время вызова попадает в метрику")
+    void sendsSmsAsynchronously() throws Exception {
+        // Подготовка
+        ReflectionTestUtils.setField(notificationService, "smsApiUrl", url("/sms"));
+
+        // Выполнение
+        CompletableFuture<Void> result = notificationService.sendSms("+79991234567", "Тест");
+
+        // Проверка
+        result.get(5, TimeUnit.SECONDS);
+        assertEquals(1, meterRegistry.get("notification.send.duration")
+                .tag("channel", "sms").tag("outcome", "success").timer().count());
+        assertEquals(10, meterRegistry.get("notification.http.pool").tag("state", "max").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Запрос, не уложившийся в срок, завершается ошибкой и отменяется")
+    void failsAfterDeadline() {
+        // Подготовка
+        ReflectionTestUtils.setField(notificationService, "smsApiUrl", url("/slow"));
+
+        // Выполнение
+        long started = System.nanoTime();
+        CompletableFuture<Void> result = notificationService.sendSms("+79991234567", "Тест", Duration.ofMillis(200));
+
+        // Проверка
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, meterRegistry.get("notification.send.failures").tag("channel", "sms").counter().count());
+    }
+
+    @Test
+    @DisplayName("SMS, отправленные в одном окне, уходят одним запросом с результатом по каждому номеру")
+    void sendsSmsInBatch() throws Exception {
+        // Подготовка
+        ReflectionTestUtils.setField(notificationService, "smsApiUrl", url("/sms"));
+        ReflectionTestUtils.setField(notificationService, "smsBatchUrl", url("/sms/batch"));
+
+        // Выполнение
+        CompletableFuture<Void> first = notificationService.sendSms("+79991234567", "Первое");
+        CompletableFuture<Void> second = notificationService.sendSms("+7000", "Второе");
+        CompletableFuture<Void> third = notificationService.sendSms("+79997654321", "Третье");
+
+        // Проверка
+        first.get(5, TimeUnit.SECONDS);
+        third.get(5, TimeUnit.SECONDS);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals("Неверный номер", error.getCause().getMessage());
+        assertEquals(1, batchRequests.get());
+        assertEquals(3, meterRegistry.get("notification.batch.size").tag("channel", "sms").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("notification.send.failures").tag("channel", "sms").counter().count());
+    }
+
+    @Test
+    @DisplayName("Срок одного вызова не отменяет запрос пачки для остальных номеров")
+    void callDeadlineDoesNotCancelBatch() throws Exception {
+        // Подготовка
+        ReflectionTestUtils.setField(notificationService, "smsApiUrl", url("/sms"));
+        ReflectionTestUtils.setField(notificationService, "smsBatchUrl", url("/sms/slow-batch"));
+
+        // Выполнение
+        CompletableFuture<Void> impatient = notificationService.sendSms("+79991234567", "Первое", Duration.ofMillis(100));
+        CompletableFuture<Void> patient = notificationService.sendSms("+79997654321", "Второе");
+
+        // Проверка
+        ExecutionException error = assertThrows(ExecutionException.class, () -> impatient.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        patient.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Остановка дожидается ответа на отправленную пачку до закрытия HTTP-клиента")
+    void shutdownWaitsForInFlightBatch() {
+        // Подготовка
+        ReflectionTestUtils.setField(notificationService, "smsApiUrl", url("/sms"));
+        ReflectionTestUtils.setField(notificationService, "smsBatchUrl", url("/sms/slow-batch"));
+        CompletableFuture<Void> first = notificationService.sendSms("+79991234567", "Первое");
+        CompletableFuture<Void> second = notificationService.sendSms("+79997654321", "Второе");
+
+        // Выполнение
+        notificationService.shutdown();
+
+        // Проверка
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
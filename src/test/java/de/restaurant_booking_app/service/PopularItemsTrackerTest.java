@@ -0,0 +1,109 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.model.PopularityWindow;
+import de.restaurant_booking_app.repository.OrderDetailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PopularItemsTrackerTest {
+
+    @Mock
+    private OrderDetailRepository orderDetailRepository;
+
+    private PopularItemsTracker tracker;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new PopularItemsTracker(orderDetailRepository, 16);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    @DisplayName("Топ блюд упорядочен по количеству заказанных порций")
+    void topOrderedByQuantity() {
+        // Подготовка
+        tracker.record(1L, 2, now);
+        tracker.record(2L, 5, now);
+        tracker.record(3L, 1, now);
+        tracker.record(1L, 4, now);
+
+        // Проверка
+        assertEquals(Arrays.asList(1L, 2L), tracker.top(PopularityWindow.ALL_TIME, 2));
+        assertEquals(Arrays.asList(1L, 2L, 3L), tracker.top(PopularityWindow.DAY, 10));
+    }
+
+    @Test
+    @DisplayName("Старые заказы не попадают в окна «сутки» и «неделя»")
+    void slidingWindows() {
+        // Подготовка
+        tracker.record(1L, 10, now.minusDays(3));
+        tracker.record(2L, 1, now.minusHours(1));
+        tracker.record(3L, 50, now.minusDays(30));
+
+        // Проверка
+        assertEquals(Collections.singletonList(2L), tracker.top(PopularityWindow.DAY, 5));
+        assertEquals(Arrays.asList(1L, 2L), tracker.top(PopularityWindow.WEEK, 5));
+        assertEquals(Arrays.asList(3L, 1L, 2L), tracker.top(PopularityWindow.ALL_TIME, 5));
+    }
+
+    @Test
+    @DisplayName("Заказ, учтенный во время загрузки статистики, не теряется")
+    void warmUpKeepsOrdersRecordedConcurrently() throws InterruptedException {
+        // Подготовка
+        Thread[] recorder = new Thread[1];
+        when(orderDetailRepository.sumQuantityByMenuItem()).thenAnswer(invocation -> {
+            recorder[0] = new Thread(() -> tracker.record(7L, 3, now));
+            recorder[0].start();
+            recorder[0].join(200);
+            return List.<Object[]>of(new Object[]{1L, 1L});
+        });
+        when(orderDetailRepository.streamDetailsCreatedAfter(any())).thenReturn(Stream.empty());
+
+        // Выполнение
+        tracker.warmUp();
+        recorder[0].join();
+
+        // Проверка
+        assertEquals(Arrays.asList(7L, 1L), tracker.top(PopularityWindow.ALL_TIME, 5));
+        assertEquals(Collections.singletonList(7L), tracker.top(PopularityWindow.DAY, 5));
+    }
+
+    @Test
+    @DisplayName("Space-Saving сохраняет частые элементы при переполнении")
+    void spaceSavingKeepsHeavyHitters() {
+        // Подготовка
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        for (int i = 0; i < 100; i++) {
+            sketch.offer(1L, 1);
+            sketch.offer(100L + i, 1);
+            if (i % 2 == 0) {
+                sketch.offer(2L, 1);
+            }
+        }
+
+        // Действие
+        List<SpaceSavingSketch.Counter> top = sketch.top(1);
+
+        // Проверка
+        assertEquals(1L, top.get(0).item());
+        assertEquals(100L, top.get(0).count());
+        assertEquals(0L, top.get(0).error());
+        assertEquals(3, sketch.counters().size());
+    }
+}
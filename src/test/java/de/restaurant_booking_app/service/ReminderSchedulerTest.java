@@ -0,0 +1,154 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.dto.BookingReminder;
+import de.restaurant_booking_app.model.BookingStatus;
+import de.restaurant_booking_app.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReminderSchedulerTest {
+
+    private static final Duration OFFSET = Duration.ofHours(3);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ReminderDispatcher reminderDispatcher;
+
+    private ReminderScheduler reminderScheduler;
+
+    @BeforeEach
+    void setUp() {
+        reminderScheduler = new ReminderScheduler(bookingRepository, reminderDispatcher,
+                OFFSET, Duration.ofHours(6), Duration.ofMillis(200), Duration.ofMillis(50), 64);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        reminderScheduler.stop();
+    }
+
+    @Test
+    @DisplayName("Напоминание отправляется, когда наступает его срок")
+    void schedule_firesWhenDeadlineReached() {
+        // Подготовка
+        when(bookingRepository.markReminderSent(1L)).thenReturn(1);
+        when(bookingRepository.findRemindersByIds(List.of(1L), BookingStatus.CONFIRMED))
+                .thenReturn(List.of(reminder(1L)));
+        reminderScheduler.start();
+
+        // Выполнение
+        reminderScheduler.schedule(1L, LocalDateTime.now().plus(OFFSET).plusNanos(200_000_000));
+
+        // Проверка
+        verify(bookingRepository, after(100).never()).markReminderSent(1L);
+        verify(bookingRepository, timeout(2000)).markReminderSent(1L);
+        verify(reminderDispatcher, timeout(2000)).dispatch(any(), any());
+    }
+
+    @Test
+    @DisplayName("Отмененное напоминание не отправляется")
+    void cancel_removesScheduledReminder() {
+        // Подготовка
+        reminderScheduler.start();
+        reminderScheduler.schedule(2L, LocalDateTime.now().plus(OFFSET).plusNanos(100_000_000));
+
+        // Выполнение
+        reminderScheduler.cancel(2L);
+
+        // Проверка
+        verify(bookingRepository, after(500).never()).markReminderSent(2L);
+        verifyNoInteractions(reminderDispatcher);
+    }
+
+    @Test
+    @DisplayName("Поздняя бронь получает напоминание сразу, уже начавшаяся — нет")
+    void schedule_lateBookingIsSentImmediately() {
+        // Подготовка
+        when(bookingRepository.markReminderSent(3L)).thenReturn(1);
+        when(bookingRepository.findRemindersByIds(List.of(3L), BookingStatus.CONFIRMED))
+                .thenReturn(List.of(reminder(3L)));
+        reminderScheduler.start();
+
+        // Выполнение
+        reminderScheduler.schedule(3L, LocalDateTime.now().plusHours(1));
+        reminderScheduler.schedule(4L, LocalDateTime.now().minusMinutes(1));
+
+        // Проверка
+        verify(bookingRepository, timeout(1000)).markReminderSent(3L);
+        verify(reminderDispatcher, timeout(1000)).dispatch(any(), any());
+        verify(bookingRepository, never()).markReminderSent(4L);
+    }
+
+    @Test
+    @DisplayName("При запуске подгружаются напоминания, срок которых наступил во время простоя")
+    void start_loadsRemindersMissedWhileStopped() {
+        // Подготовка
+        LocalDateTime started = LocalDateTime.now();
+        List<Object[]> missed = List.<Object[]>of(new Object[]{5L, started.plusHours(1)});
+        when(bookingRepository.findConfirmedStartTimes(any(), any())).thenReturn(missed, List.of());
+        when(bookingRepository.markReminderSent(5L)).thenReturn(1);
+        when(bookingRepository.findRemindersByIds(List.of(5L), BookingStatus.CONFIRMED))
+                .thenReturn(List.of(reminder(5L)));
+
+        // Выполнение
+        reminderScheduler.start();
+
+        // Проверка
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(bookingRepository, atLeastOnce()).findConfirmedStartTimes(from.capture(), any());
+        assertFalse(from.getAllValues().get(0).isAfter(LocalDateTime.now()));
+        assertFalse(from.getAllValues().get(0).isBefore(started));
+        verify(bookingRepository, timeout(1000)).markReminderSent(eq(5L));
+        verify(reminderDispatcher, timeout(1000)).dispatch(any(), any());
+    }
+
+    @Test
+    @DisplayName("Неотправленное напоминание возвращается и отправляется повторно")
+    void fire_failedSendIsRetried() {
+        // Подготовка
+        when(bookingRepository.markReminderSent(6L)).thenReturn(1);
+        when(bookingRepository.resetReminderSent(6L)).thenReturn(1);
+        when(bookingRepository.findRemindersByIds(List.of(6L), BookingStatus.CONFIRMED))
+                .thenReturn(List.of(reminder(6L)));
+        when(reminderDispatcher.dispatch(any(), any())).thenAnswer(invocation -> {
+            Stream<BookingReminder> reminders = invocation.getArgument(0);
+            Consumer<BookingReminder> onFailure = invocation.getArgument(1);
+            reminders.forEach(onFailure);
+            return new ReminderDispatcher.RunResult(0, 1, Duration.ZERO);
+        }).thenReturn(new ReminderDispatcher.RunResult(1, 0, Duration.ZERO));
+        reminderScheduler.start();
+
+        // Выполнение
+        reminderScheduler.schedule(6L, LocalDateTime.now().plusHours(1));
+
+        // Проверка
+        verify(bookingRepository, timeout(1000)).resetReminderSent(6L);
+        verify(bookingRepository, timeout(2000).times(2)).markReminderSent(6L);
+        verify(reminderDispatcher, timeout(2000).times(2)).dispatch(any(), any());
+        verify(bookingRepository, times(1)).resetReminderSent(6L);
+    }
+
+    private static BookingReminder reminder(Long id) {
+        return new BookingReminder(id, "Иван", "+79990000000", LocalDateTime.now().plusHours(1), 1);
+    }
+}
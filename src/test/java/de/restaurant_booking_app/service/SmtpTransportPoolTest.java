@@ -0,0 +1,107 @@
+package de.restaurant_booking_app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SmtpTransportPoolTest {
+
+    private LocalSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private SimpleMeterRegistry meterRegistry;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new LocalSmtpServer(0);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        meterRegistry = new SimpleMeterRegistry();
+        pool = new SmtpTransportPool(mailSender, meterRegistry, 1,
+                Duration.ofMinutes(1), Duration.ofMinutes(2), 5_000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Отклоненный получатель не прерывает пакет и не закрывает соединение")
+    void rejectedRecipientFailsOnlyItsMessage() throws MessagingException {
+        // Подготовка
+        List<MimeMessage> messages = List.of(message("guest1@example.com"),
+                message("rejected@example.com"), message("guest2@example.com"));
+
+        // Выполнение
+        List<SmtpTransportPool.Delivery> deliveries = pool.sendAll(messages);
+
+        // Проверка
+        assertEquals(3, deliveries.size());
+        assertTrue(deliveries.get(0).isSent());
+        assertInstanceOf(SendFailedException.class, deliveries.get(1).error());
+        assertTrue(deliveries.get(2).isSent());
+        assertSame(messages.get(1), deliveries.get(1).message());
+        assertEquals(2, server.getMessages());
+        assertEquals(1, server.getConnections());
+    }
+
+    @Test
+    @DisplayName("После разрыва соединения пул переподключается и отправляет письмо повторно")
+    void reconnectsAfterDroppedConnection() throws MessagingException {
+        // Подготовка
+        server.dropAfterMessages(1);
+        List<MimeMessage> messages = List.of(message("guest1@example.com"),
+                message("guest2@example.com"), message("guest3@example.com"));
+
+        // Выполнение
+        List<SmtpTransportPool.Delivery> deliveries = pool.sendAll(messages);
+
+        // Проверка
+        assertTrue(deliveries.stream().allMatch(SmtpTransportPool.Delivery::isSent));
+        assertEquals(3, server.getMessages());
+        assertEquals(3, server.getConnections());
+        assertEquals(2, meterRegistry.get("email.smtp.connections").tag("reason", "reconnect").counter().count());
+    }
+
+    @Test
+    @DisplayName("Недоступный сервер помечает ошибкой все письма пакета без исключения")
+    void unavailableServerFailsEveryMessage() throws MessagingException, IOException {
+        // Подготовка
+        List<MimeMessage> messages = List.of(message("guest1@example.com"), message("guest2@example.com"));
+        server.close();
+
+        // Выполнение
+        List<SmtpTransportPool.Delivery> deliveries = pool.sendAll(messages);
+
+        // Проверка
+        assertEquals(2, deliveries.size());
+        assertTrue(deliveries.stream().noneMatch(SmtpTransportPool.Delivery::isSent));
+        assertThrows(MessagingException.class, () -> pool.send(message("guest3@example.com")));
+    }
+
+    private MimeMessage message(String to) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("restaurant@example.com");
+        helper.setTo(to);
+        helper.setSubject("Подтверждение бронирования столика");
+        helper.setText("<p>Ваше бронирование успешно подтверждено.</p>", true);
+        return message;
+    }
+}
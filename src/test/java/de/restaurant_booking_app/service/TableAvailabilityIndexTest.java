@@ -0,0 +1,101 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TableAvailabilityIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private TableAvailabilityIndex index;
+    private LocalDateTime evening;
+
+    @BeforeEach
+    void setUp() {
+        index = new TableAvailabilityIndex(bookingRepository, Duration.ofMinutes(1));
+        evening = LocalDateTime.now().plusDays(1).withHour(19).withMinute(0).withSecond(0).withNano(0);
+        lenient().when(bookingRepository.findConfirmedIntervals(any(), any(), any()))
+                .thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("Пересекающееся бронирование отклоняется по карте")
+    void overlappingIntervalIsOccupied() {
+        index.markBusy(1L, evening, evening.plusHours(2));
+
+        assertTrue(index.isOccupied(1L, evening.plusMinutes(30), evening.plusHours(3)));
+        assertTrue(index.isOccupied(1L, evening.plusHours(1), evening.plusHours(1).plusMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("Разные столики и непересекающиеся интервалы не конфликтуют")
+    void independentIntervals() {
+        index.markBusy(1L, evening, evening.plusHours(2));
+
+        assertFalse(index.isOccupied(2L, evening, evening.plusHours(2)));
+        assertFalse(index.isOccupied(1L, evening.plusHours(2).plusMinutes(5), evening.plusHours(4)));
+    }
+
+    @Test
+    @DisplayName("Общий граничный слот не считается пересечением")
+    void sharedBoundarySlotIsNotOccupied() {
+        index.markBusy(1L, evening, evening.plusHours(2).plusMinutes(2));
+
+        assertFalse(index.isOccupied(1L, evening.plusHours(2).plusMinutes(3), evening.plusHours(4)));
+    }
+
+    @Test
+    @DisplayName("Бронирование через полночь занимает слоты обоих дней")
+    void reservationAcrossMidnight() {
+        LocalDateTime lateEvening = evening.withHour(22);
+        index.markBusy(1L, lateEvening, lateEvening.plusHours(4));
+
+        assertTrue(index.isOccupied(1L, lateEvening.plusHours(3), lateEvening.plusHours(5)));
+        assertFalse(index.isOccupied(1L, lateEvening.plusHours(5), lateEvening.plusHours(6)));
+    }
+
+    @Test
+    @DisplayName("День загружается из БД один раз и сбрасывается при инвалидации")
+    void lazyLoadAndInvalidate() {
+        when(bookingRepository.findConfirmedIntervals(eq(1L), any(), any()))
+                .thenReturn(Collections.singletonList(new Object[]{evening, evening.plusHours(2)}));
+
+        assertTrue(index.isOccupied(1L, evening.plusMinutes(30), evening.plusHours(1)));
+        assertTrue(index.isOccupied(1L, evening, evening.plusMinutes(10)));
+        verify(bookingRepository, times(1)).findConfirmedIntervals(eq(1L), any(), any());
+
+        when(bookingRepository.findConfirmedIntervals(eq(1L), any(), any()))
+                .thenReturn(Collections.emptyList());
+        index.invalidate(1L, evening, evening.plusHours(2));
+
+        assertFalse(index.isOccupied(1L, evening, evening.plusHours(2)));
+        verify(bookingRepository, times(2)).findConfirmedIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    @DisplayName("Устаревший день перечитывается из БД")
+    void expiredDayIsReloaded() {
+        index = new TableAvailabilityIndex(bookingRepository, Duration.ZERO);
+
+        index.isOccupied(1L, evening, evening.plusHours(2));
+        index.isOccupied(1L, evening, evening.plusHours(2));
+
+        verify(bookingRepository, times(2)).findConfirmedIntervals(eq(1L), any(), any());
+    }
+}
@@ -0,0 +1,122 @@
+package de.restaurant_booking_app.service;
+
+import de.restaurant_booking_app.exception.ResourceNotFoundException;
+import de.restaurant_booking_app.model.BookingTable;
+import de.restaurant_booking_app.repository.BookingTableRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TableServiceTest {
+
+    @Mock
+    private BookingTableRepository bookingTableRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TableService tableService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tableService = new TableService(bookingTableRepository, meterRegistry);
+        lenient().when(bookingTableRepository.findAll()).thenReturn(Arrays.asList(
+                table(3L, 3, 6, true),
+                table(1L, 1, 2, false),
+                table(2L, 2, 4, false),
+                table(4L, 4, 4, true)));
+    }
+
+    @Test
+    @DisplayName("Повторные чтения обслуживаются из снимка без обращения к БД")
+    void readsServedFromSnapshot() {
+        // Действие
+        tableService.getAllTables();
+        tableService.getVipTables();
+        tableService.getTableById(2L);
+
+        // Проверка
+        verify(bookingTableRepository, times(1)).findAll();
+        assertEquals(1.0, meterRegistry.get("tables.snapshot.requests").tag("result", "miss").counter().count());
+        assertEquals(2.0, meterRegistry.get("tables.snapshot.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    @DisplayName("Поиск по минимальной вместимости возвращает столики по возрастанию вместимости")
+    void tablesByMinCapacity() {
+        // Действие
+        List<Integer> numbers = tableService.getTablesByMinCapacity(4).stream()
+                .map(BookingTable::getTableNumber)
+                .collect(Collectors.toList());
+
+        // Проверка
+        assertEquals(Arrays.asList(2, 4, 3), numbers);
+        assertTrue(tableService.getTablesByMinCapacity(7).isEmpty());
+        assertEquals(4, tableService.getTablesByMinCapacity(1).size());
+    }
+
+    @Test
+    @DisplayName("Изменение полученного столика не меняет снимок")
+    void returnedTablesDoNotChangeSnapshot() {
+        // Подготовка
+        BookingTable table = tableService.getTableById(1L);
+
+        // Действие
+        table.setCapacity(20);
+        tableService.getAllTables().get(0).setIsVip(true);
+        tableService.getVipTables().clear();
+        tableService.getTablesByMinCapacity(1).get(0).setCapacity(0);
+
+        // Проверка
+        assertEquals(2, tableService.getTableById(1L).getCapacity());
+        assertFalse(tableService.getTableById(1L).getIsVip());
+        assertEquals(2, tableService.getVipTables().size());
+        assertEquals(4, tableService.getTablesByMinCapacity(1).size());
+        assertEquals(1L, tableService.getTablesByMinCapacity(1).get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Отсутствующий столик приводит к ResourceNotFoundException")
+    void missingTableThrows() {
+        assertThrows(ResourceNotFoundException.class, () -> tableService.getTableById(99L));
+    }
+
+    @Test
+    @DisplayName("Создание столика заменяет снимок новой версией")
+    void createTableReplacesSnapshot() {
+        // Подготовка
+        BookingTable created = table(5L, 5, 8, false);
+        when(bookingTableRepository.save(any(BookingTable.class))).thenReturn(created);
+        long version = tableService.getSnapshot().getVersion();
+        when(bookingTableRepository.findAll()).thenReturn(List.of(created));
+
+        // Действие
+        tableService.createTable(created);
+
+        // Проверка
+        assertEquals(version + 1, tableService.getSnapshot().getVersion());
+        assertEquals(1, tableService.getAllTables().size());
+        assertEquals(8, tableService.getTableById(5L).getCapacity());
+    }
+
+    private BookingTable table(Long id, int number, int capacity, boolean vip) {
+        return BookingTable.builder()
+                .id(id)
+                .tableNumber(number)
+                .capacity(capacity)
+                .isVip(vip)
+                .build();
+    }
+}